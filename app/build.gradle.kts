@@ -1,6 +1,7 @@
 plugins {
     alias(libs.plugins.androidApplication)
     id("com.google.gms.google-services")
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -15,6 +16,11 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Host of a Firestore and Auth emulator to run against, e.g. -Pezchat.emulatorHost=10.0.2.2.
+        // Read by BenchmarkSetupProvider in the benchmark build types; empty means the production backend.
+        val emulatorHost = (project.findProperty("ezchat.emulatorHost") as String?) ?: ""
+        buildConfigField("String", "EMULATOR_HOST", "\"$emulatorHost\"")
     }
 
     buildTypes {
@@ -26,12 +32,32 @@ android {
             )
         }
     }
+    sourceSets {
+        // Emulator wiring and the seeded account, only compiled into the build types the
+        // baseline profile plugin adds for benchmarking and profile generation
+        for (name in listOf("benchmarkRelease", "nonMinifiedRelease")) {
+            maybeCreate(name).apply {
+                java.srcDir("src/benchmark/java")
+                manifest.srcFile("src/benchmark/AndroidManifest.xml")
+            }
+        }
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
     }
+    testOptions {
+        unitTests.all {
+            // Forwards the switches read by MicrobenchmarkSuite, e.g. -Pezchat.jmh=true
+            for (name in listOf("ezchat.jmh", "ezchat.jmh.include", "ezchat.jmh.baseline")) {
+                project.findProperty(name)?.let { value -> it.systemProperty(name, value) }
+            }
+            it.systemProperty("ezchat.jmh.reportDir", layout.buildDirectory.dir("reports/jmh").get().asFile.path)
+        }
+    }
     buildFeatures{
         viewBinding = true;
+        buildConfig = true
     }
 }
 
@@ -47,7 +73,15 @@ dependencies {
     implementation(libs.glide)
     implementation(libs.imagepicker)
     implementation(libs.media3.common)
+    implementation(libs.room.runtime)
+    annotationProcessor(libs.room.compiler)
+    annotationProcessor(project(":mapper-processor"))
+    implementation(libs.lifecycle.livedata)
+    implementation(libs.profileinstaller)
+    baselineProfile(project(":benchmark"))
     testImplementation(libs.junit)
+    testImplementation(libs.jmh.core)
+    testAnnotationProcessor(libs.jmh.generator.annprocess)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("com.hbb20:ccp:2.7.3")
@@ -22,3 +22,8 @@
 -keepclassmembers class com.example.ezchat.model.UserModel {
     public <init>();  #Keep the no-argument constructor
 }
+
+# Generated Firestore mappers are looked up by name in Mappers
+-keep class **_FirestoreMapper {
+    public <init>();
+}
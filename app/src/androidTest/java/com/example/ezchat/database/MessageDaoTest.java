@@ -0,0 +1,108 @@
+package com.example.ezchat.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the local message store, run against an in-memory database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MessageDaoTest {
+    private ChatDatabase database;
+    private MessageDao messageDao;
+
+    @Before
+    public void createDatabase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = ChatDatabase.createInMemory(context);
+        messageDao = database.messageDao();
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void pagesAreReturnedNewestFirst() {
+        messageDao.insertSynced("room", Arrays.asList(message("room", "a", 1), message("room", "b", 2),
+                message("room", "c", 3), message("other", "d", 4)));
+
+        List<MessageEntity> newest = messageDao.getNewest("room", 2);
+        assertEquals(2, newest.size());
+        assertEquals("c", newest.get(0).messageId);
+        assertEquals("b", newest.get(1).messageId);
+
+        List<MessageEntity> older = messageDao.getOlderThan("room", newest.get(1).timestamp, newest.get(1).messageId, 2);
+        assertEquals(1, older.size());
+        assertEquals("a", older.get(0).messageId);
+    }
+
+    @Test
+    public void messagesSharingATimestampAreOrderedById() {
+        messageDao.upsert(Arrays.asList(message("room", "b", 5), message("room", "a", 5), message("room", "c", 5)));
+
+        List<MessageEntity> newest = messageDao.getNewest("room", 2);
+        assertEquals("c", newest.get(0).messageId);
+        assertEquals("b", newest.get(1).messageId);
+
+        List<MessageEntity> older = messageDao.getOlderThan("room", 5, "b", 2);
+        assertEquals(1, older.size());
+        assertEquals("a", older.get(0).messageId);
+    }
+
+    @Test
+    public void syncMarkerOnlyMovesForward() {
+        assertNull(messageDao.getLastSynced("room"));
+
+        messageDao.insertSynced("room", Arrays.asList(message("room", "a", 5), message("room", "b", 7)));
+        assertEquals(Long.valueOf(7), messageDao.getLastSynced("room"));
+
+        messageDao.insertSynced("room", Arrays.asList(message("room", "c", 6)));
+        assertEquals(Long.valueOf(7), messageDao.getLastSynced("room"));
+    }
+
+    @Test
+    public void storingTheSameMessageTwiceKeepsOneCopy() {
+        messageDao.upsert(Arrays.asList(message("room", "a", 1)));
+        messageDao.upsert(Arrays.asList(message("room", "a", 1)));
+
+        assertEquals(1, messageDao.getNewest("room", 10).size());
+    }
+
+    @Test
+    public void deletedMessagesAreNoLongerReturned() {
+        messageDao.upsert(Arrays.asList(message("room", "a", 1), message("room", "b", 2),
+                message("other", "b", 3)));
+
+        messageDao.delete("room", Arrays.asList("b"));
+
+        List<MessageEntity> newest = messageDao.getNewest("room", 10);
+        assertEquals(1, newest.size());
+        assertEquals("a", newest.get(0).messageId);
+        // Message IDs are only unique within a chatroom
+        assertEquals(1, messageDao.getNewest("other", 10).size());
+    }
+
+    private static MessageEntity message(String chatroomId, String messageId, long timestamp) {
+        MessageEntity entity = new MessageEntity();
+        entity.chatroomId = chatroomId;
+        entity.messageId = messageId;
+        entity.senderId = "sender";
+        entity.message = "message " + messageId;
+        entity.timestamp = timestamp;
+        return entity;
+    }
+}
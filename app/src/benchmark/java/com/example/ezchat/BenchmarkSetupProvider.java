@@ -0,0 +1,105 @@
+package com.example.ezchat;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares the builds measured by the benchmark module: points Firestore and Auth at the local
+ * emulators seeded by benchmark/seed_emulator.sh and signs in as the seeded benchmark user.
+ * Content providers are created before Application.onCreate, and the sign-in is awaited here,
+ * so the session exists before EZChatApplication prewarms and SplashActivity routes.
+ * This class is only compiled into the build types the baseline profile plugin adds for
+ * benchmarking and profile generation, and does nothing unless the build was made with the
+ * ezchat.emulatorHost property.
+ */
+public class BenchmarkSetupProvider extends ContentProvider {
+    private static final String TAG = "BenchmarkSetup";
+    // Ports of the local Firestore and Auth emulators
+    static final int FIRESTORE_EMULATOR_PORT = 8080;
+    static final int AUTH_EMULATOR_PORT = 9099;
+    // Account created by benchmark/seed_emulator.sh
+    static final String BENCHMARK_EMAIL = "bench@ezchat.test";
+    static final String BENCHMARK_PASSWORD = "benchmark";
+    private static final long SIGN_IN_TIMEOUT_SECONDS = 30;
+
+    @Override
+    public boolean onCreate() {
+        String host = BuildConfig.EMULATOR_HOST;
+        if (host.isEmpty()) {
+            return true;
+        }
+        FirebaseFirestore.getInstance().useEmulator(host, FIRESTORE_EMULATOR_PORT);
+        FirebaseAuth auth = FirebaseAuth.getInstance();
+        auth.useEmulator(host, AUTH_EMULATOR_PORT);
+        if (auth.getCurrentUser() == null) {
+            signIn(auth);
+        }
+        return true;
+    }
+
+    /**
+     * Signs in as the benchmark user and blocks until it finishes. Only the first launch after
+     * installing the app waits here; later launches restore the persisted session.
+     * @param auth The Auth instance, already pointed at the emulator.
+     */
+    private void signIn(FirebaseAuth auth) {
+        CountDownLatch done = new CountDownLatch(1);
+        // The result is delivered on the calling thread of the task, as the main thread is blocked below
+        auth.signInWithEmailAndPassword(BENCHMARK_EMAIL, BENCHMARK_PASSWORD)
+                .addOnCompleteListener(Runnable::run, task -> {
+                    if (!task.isSuccessful()) {
+                        Log.e(TAG, "Failed to sign in as the benchmark user", task.getException());
+                    }
+                    done.countDown();
+                });
+        try {
+            if (!done.await(SIGN_IN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.e(TAG, "Timed out signing in as the benchmark user");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
+                        @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        return null;
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        return 0;
+    }
+}
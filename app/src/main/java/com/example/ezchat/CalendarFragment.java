@@ -9,12 +9,17 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LiveData;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.ezchat.databinding.FragmentCalendarBinding;
-import com.example.ezchat.utils.FirebaseUtil;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.ezchat.repository.SyncStatus;
+import com.example.ezchat.repository.Synced;
+import com.example.ezchat.repository.TaskRepository;
+import com.example.ezchat.utils.AndroidUtil;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -25,17 +30,16 @@ import java.util.Locale;
 
 /**
  * CalendarFragment displays a calendar and allows users to manage tasks for specific dates.
- * Tasks are saved in Firebase Firestore for persistence.
+ * Tasks are saved in Firebase Firestore for persistence, and the tasks of the selected date
+ * are observed through the TaskRepository.
  */
 public class CalendarFragment extends Fragment {
 
     private FragmentCalendarBinding binding;
 
-    // Firestore instance
-    private FirebaseFirestore firestore;
-
-    // Data structure to store tasks by date
-    private HashMap<String, List<String>> tasksByDate;
+    // Tasks of the selected date, and the last list they delivered
+    private LiveData<Synced<List<String>>> tasks;
+    private List<String> currentTasks;
     private TaskAdapter taskAdapter;
 
     private String selectedDate;
@@ -46,29 +50,24 @@ public class CalendarFragment extends Fragment {
         // Initialize View Binding
         binding = FragmentCalendarBinding.inflate(inflater, container, false);
 
-        // Initialize Firestore
-        firestore = FirebaseFirestore.getInstance();
-
-        // Initialize task storage
-        tasksByDate = new HashMap<>();
         selectedDate = getCurrentDate(); // Default to today's date
 
         // Set up RecyclerView
-        taskAdapter = new TaskAdapter(new ArrayList<>());
+        taskAdapter = new TaskAdapter();
         binding.taskRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.taskRecyclerView.setAdapter(taskAdapter);
 
         // Set default header to today's date
-        binding.taskHeader.setText("Tasks for " + selectedDate);
+        showHeader(SyncStatus.SYNCED);
 
         // Load tasks for today's date
-        loadTasksFromFirestore();
+        observeTasks();
 
         // Calendar selection listener
         binding.calendarView.setOnDateChangeListener((view, year, month, dayOfMonth) -> {
             selectedDate = String.format(Locale.getDefault(), "%d-%02d-%02d", year, month + 1, dayOfMonth);
-            binding.taskHeader.setText("Tasks for " + selectedDate);
-            loadTasksFromFirestore();
+            showHeader(SyncStatus.SYNCED);
+            observeTasks();
         });
 
         // Add Task button listener
@@ -98,76 +97,73 @@ public class CalendarFragment extends Fragment {
     }
 
     /**
-     * Loads tasks for the selected date from Firestore and updates the RecyclerView.
+     * Observes the tasks of the selected date for as long as the view exists, replacing the
+     * observation of the previously selected date.
      */
-    private void loadTasksFromFirestore() {
-        firestore.collection("users")
-                .document(FirebaseUtil.currentUserId())
-                .collection("tasks")
-                .document(selectedDate)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        List<String> tasks = (List<String>) documentSnapshot.get("tasks");
-                        tasksByDate.put(selectedDate, tasks != null ? tasks : new ArrayList<>());
-                        taskAdapter.updateTasks(tasksByDate.get(selectedDate));
-                    } else {
-                        tasksByDate.put(selectedDate, new ArrayList<>());
-                        taskAdapter.updateTasks(new ArrayList<>());
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    // Handle error
-                });
+    private void observeTasks() {
+        if (tasks != null) {
+            tasks.removeObservers(getViewLifecycleOwner());
+        }
+        currentTasks = null;
+        tasks = TaskRepository.getInstance().observeTasks(selectedDate);
+        tasks.observe(getViewLifecycleOwner(), loaded -> {
+            if (loaded.getError() != null) {
+                AndroidUtil.showToast(getContext(), "Failed to load tasks: " + loaded.getError().getMessage());
+                return;
+            }
+            currentTasks = loaded.getValue();
+            taskAdapter.updateTasks(currentTasks);
+            showHeader(loaded.getStatus());
+        });
     }
 
     /**
-     * Adds a new task for the selected date, saves it to Firestore, and updates the task list.
+     * Shows the selected date in the header, followed by the sync status of its tasks if it
+     * has a label.
+     * @param status The sync status of the tasks.
      */
-    private void addTaskForSelectedDate() {
-        String newTask = "New Task on " + selectedDate;
-        List<String> tasks = tasksByDate.getOrDefault(selectedDate, new ArrayList<>());
-        tasks.add(newTask);
-
-        // Update local data structure
-        tasksByDate.put(selectedDate, tasks);
-        taskAdapter.updateTasks(tasks);
-
-        // Save to Firestore
-        saveTasksToFirestore(selectedDate, tasks);
+    private void showHeader(SyncStatus status) {
+        String header = "Tasks for " + selectedDate;
+        if (status.getLabel() != 0) {
+            header += " (" + getString(status.getLabel()) + ")";
+        }
+        binding.taskHeader.setText(header);
     }
 
     /**
-     * Saves the tasks for the given date to Firestore.
-     *
-     * @param date  The date for which the tasks are being saved.
-     * @param tasks The list of tasks to save.
+     * Adds a new task for the selected date and saves it to Firestore. The observed task list
+     * shows the new task as soon as it is written locally.
      */
-    private void saveTasksToFirestore(String date, List<String> tasks) {
-        firestore.collection("users")
-                .document(FirebaseUtil.currentUserId())
-                .collection("tasks")
-                .document(date)
-                .set(new HashMap<String, Object>() {{
-                    put("tasks", tasks);
-                }})
-                .addOnSuccessListener(aVoid -> {
-                    // Successfully saved tasks
-                })
-                .addOnFailureListener(e -> {
-                    // Handle error
-                });
+    private void addTaskForSelectedDate() {
+        if (currentTasks == null) {
+            // The tasks of the date have not loaded yet; saving now would overwrite them
+            return;
+        }
+        List<String> updated = new ArrayList<>(currentTasks);
+        updated.add("New Task on " + selectedDate);
+        TaskRepository.getInstance().saveTasks(selectedDate, updated);
     }
 
     /**
      * TaskAdapter for managing and displaying task items in the RecyclerView.
+     * Task lists are diffed off the main thread so only added or changed tasks rebind.
      */
     private class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder> {
 
-        private List<String> tasks;
+        private final AsyncListDiffer<TaskItem> differ = new AsyncListDiffer<>(this, new DiffUtil.ItemCallback<TaskItem>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull TaskItem oldItem, @NonNull TaskItem newItem) {
+                return oldItem.id == newItem.id;
+            }
 
-        TaskAdapter(List<String> tasks) {
-            this.tasks = tasks;
+            @Override
+            public boolean areContentsTheSame(@NonNull TaskItem oldItem, @NonNull TaskItem newItem) {
+                return oldItem.text.equals(newItem.text);
+            }
+        });
+
+        TaskAdapter() {
+            setHasStableIds(true);
         }
 
         @NonNull
@@ -179,18 +175,35 @@ public class CalendarFragment extends Fragment {
 
         @Override
         public void onBindViewHolder(@NonNull TaskViewHolder holder, int position) {
-            String task = tasks.get(position);
-            holder.taskTextView.setText(task);
+            TaskItem task = differ.getCurrentList().get(position);
+            holder.taskTextView.setText(task.text);
         }
 
         @Override
         public int getItemCount() {
-            return tasks.size();
+            return differ.getCurrentList().size();
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return differ.getCurrentList().get(position).id;
         }
 
+        /**
+         * Replaces the displayed tasks. Tasks are plain strings, so each one is identified
+         * by its text and by how many identical tasks come before it.
+         *
+         * @param tasks The tasks for the selected date.
+         */
         void updateTasks(List<String> tasks) {
-            this.tasks = tasks;
-            notifyDataSetChanged();
+            List<TaskItem> items = new ArrayList<>(tasks.size());
+            HashMap<String, Integer> occurrences = new HashMap<>();
+            for (String task : tasks) {
+                int occurrence = occurrences.containsKey(task) ? occurrences.get(task) + 1 : 0;
+                occurrences.put(task, occurrence);
+                items.add(new TaskItem(AndroidUtil.stableId(selectedDate + "/" + occurrence + "/" + task), task));
+            }
+            differ.submitList(items);
         }
 
         /**
@@ -205,4 +218,17 @@ public class CalendarFragment extends Fragment {
             }
         }
     }
+
+    /**
+     * A task together with the stable ID used to diff task lists.
+     */
+    private static class TaskItem {
+        final long id;
+        final String text;
+
+        TaskItem(long id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
 }
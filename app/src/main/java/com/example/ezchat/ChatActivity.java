@@ -11,24 +11,43 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.ezchat.adapter.ChatRecyclerAdapter;
-import com.example.ezchat.model.ChatMessageModel;
+import com.example.ezchat.database.ChatDatabase;
+import com.example.ezchat.mapper.Mappers;
 import com.example.ezchat.model.ChatroomModel;
+import com.example.ezchat.model.MessageItem;
 import com.example.ezchat.model.UserModel;
 import com.example.ezchat.utils.AndroidUtil;
+import com.example.ezchat.utils.AppExecutors;
+import com.example.ezchat.utils.ChatMessagePager;
+import com.example.ezchat.utils.ContactSearchIndex;
 import com.example.ezchat.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
-import com.google.android.gms.tasks.OnCompleteListener;
+import com.example.ezchat.utils.OutboundMessageQueue;
+import com.example.ezchat.utils.PerfTracer;
+import com.example.ezchat.utils.UserCache;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 
 import java.util.Arrays;
+import java.util.List;
 
 public class ChatActivity extends AppCompatActivity {
+    // Number of messages fetched per page of history.
+    static final int MESSAGE_PAGE_SIZE = 30;
+    // Start loading the next page when the user is this close to the oldest loaded message.
+    static final int LOAD_MORE_THRESHOLD = 10;
+    // Number of pages kept in memory behind the oldest visible message before older ones are dropped.
+    static final int PAGES_KEPT_OFF_SCREEN = 3;
+    // Rows kept attached off-screen per direction, so short scroll reversals rebind nothing.
+    static final int ROW_VIEW_CACHE_SIZE = 10;
+
     String chatroomId;
     ChatroomModel chatroomModel;
     ChatRecyclerAdapter adapter;
+    ChatMessagePager messagePager;
+    OutboundMessageQueue outboundQueue;
+    OutboundMessageQueue.Listener pendingListener;
     UserModel otherUser;
     EditText messageInput;
     ImageButton sendMessageBtn;
@@ -43,6 +62,7 @@ public class ChatActivity extends AppCompatActivity {
      */
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        PerfTracer.Span span = PerfTracer.begin("ChatActivity.onCreate");
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_chat);
 
@@ -56,6 +76,7 @@ public class ChatActivity extends AppCompatActivity {
 
         backBtn.setOnClickListener(v -> onBackPressed());
         otherUsername.setText(otherUser.getUsername());
+        ContactSearchIndex.getInstance().recordOpened(otherUser);
 
         sendMessageBtn.setOnClickListener((v -> {
             String message = messageInput.getText().toString().trim();
@@ -64,70 +85,161 @@ public class ChatActivity extends AppCompatActivity {
             sendMessageToUser(message);
         }));
 
+        outboundQueue = OutboundMessageQueue.getInstance(this);
+        outboundQueue.resumePending();
+
         getOrCreateChatroomModel();
         setupChatRecyclerView();
+        span.end();
 
     }
 
     /**
-     * Sets up the RecyclerView to display chat messages in reverse chronological order.
-     * Initializes the Firestore query and adapter for real-time message updates.
+     * Starts listening for new messages again if the listener failed while the activity was shown.
      */
-    void setupChatRecyclerView(){
-        Query query = FirebaseUtil.getChatroomMessageReference(chatroomId)
-                .orderBy("timestamp", Query.Direction.DESCENDING);
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (messagePager != null) {
+            messagePager.start();
+        }
+    }
 
-        FirestoreRecyclerOptions<ChatMessageModel> options = new FirestoreRecyclerOptions.Builder<ChatMessageModel>()
-                .setQuery(query, ChatMessageModel.class).build();
+    /**
+     * Stops listening for new messages when the activity is destroyed.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (messagePager != null) {
+            messagePager.stop();
+        }
+        if (pendingListener != null) {
+            outboundQueue.removeListener(chatroomId, pendingListener);
+        }
+    }
 
-        adapter = new ChatRecyclerAdapter(options, getApplicationContext());
+    /**
+     * Sets up the RecyclerView to display chat messages in reverse chronological order.
+     * Messages render from the local store first and only newer ones are requested from Firestore;
+     * older pages are loaded as the user scrolls back and dropped again once they are far off-screen.
+     * Rows come from a view pool shared by all chat screens and are prefetched while scrolling.
+     */
+    void setupChatRecyclerView(){
+        adapter = new ChatRecyclerAdapter(getApplicationContext());
+        adapter.setRetryListener(message -> outboundQueue.retry(chatroomId, message.getMessageId()));
         LinearLayoutManager manager = new LinearLayoutManager(this);
         manager.setReverseLayout(true);
+        manager.setItemPrefetchEnabled(true);
+        // Hand rows back to the shared pool when the screen closes
+        manager.setRecycleChildrenOnDetach(true);
+        // Rows never change the list's own size, so updates skip a full relayout
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setItemViewCacheSize(ROW_VIEW_CACHE_SIZE);
+        recyclerView.setRecycledViewPool(ChatRecyclerAdapter.getSharedViewPool());
         recyclerView.setLayoutManager(manager);
         recyclerView.setAdapter(adapter);
-        adapter.startListening();
+
+        messagePager = new ChatMessagePager(chatroomId, ChatDatabase.getInstance(this).messageDao(),
+                MESSAGE_PAGE_SIZE, new ChatMessagePager.Listener() {
+                    @Override
+                    public void onMessagesChanged(List<MessageItem> messages) {
+                        adapter.setMessages(messages);
+                    }
+
+                    @Override
+                    public void onMessagesFailed(Exception e) {
+                        AndroidUtil.showToast(getApplicationContext(), "Failed to load messages: " + e.getMessage());
+                    }
+                });
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int lastVisible = manager.findLastVisibleItemPosition();
+                if (lastVisible == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                if (lastVisible >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    messagePager.loadOlder();
+                } else {
+                    messagePager.trimTo(lastVisible + 1 + PAGES_KEPT_OFF_SCREEN * MESSAGE_PAGE_SIZE);
+                }
+            }
+        });
+        messagePager.start();
+
+        pendingListener = pendingMessages -> messagePager.setPendingMessages(pendingMessages);
+        outboundQueue.addListener(chatroomId, pendingListener);
     }
     /**
-     * Sends a message to the chatroom by updating the chatroom model's timestamp,
-     * creating a new ChatMessageModel, and saving it in Firestore.
+     * Sends a message to the chatroom through the outbound queue. The message is shown as
+     * pending and the input is cleared right away; the queue persists it until the server
+     * acknowledges the batch that writes it together with the chatroom summary.
      *
      * @param message The message content to be sent to the chatroom.
      */
     void sendMessageToUser(String message){
-
-        chatroomModel.setLastMessageTimestamp(Timestamp.now());
-        chatroomModel.setLastMessageSenderId(FirebaseUtil.currentUserId());
-        FirebaseUtil.getChatroomReference(chatroomId).set(chatroomModel);
-
-        ChatMessageModel chatMessageModel = new ChatMessageModel(message,FirebaseUtil.currentUserId(), Timestamp.now());
-        FirebaseUtil.getChatroomMessageReference(chatroomId).add(chatMessageModel)
-                .addOnCompleteListener(new OnCompleteListener<DocumentReference>() {
-                    @Override
-                    public void onComplete(@NonNull Task<DocumentReference> task) {
-                        if(task.isSuccessful()){
-                            messageInput.setText("");
-                        }
-                    }
-                });
+        PerfTracer.Span span = PerfTracer.begin("ChatActivity.sendMessageToUser");
+        List<String> userIds = chatroomModel != null
+                ? chatroomModel.getUserIds()
+                : Arrays.asList(FirebaseUtil.currentUserId(), otherUser.getUserId());
+        outboundQueue.enqueue(chatroomId, userIds, FirebaseUtil.currentUserId(), message);
+        messageInput.setText("");
+        span.end();
     }
     /**
      * Retrieves the existing ChatroomModel from Firestore or creates a new one if it doesn't exist.
      * If a new chatroom model is created, it initializes it with the current and other user IDs.
+     * Chatrooms without participant names and pictures get their summary filled in.
+     * A cached copy of the chatroom is used when there is one, since the participants never change.
+     * The document is mapped on the compute executor.
      */
     void getOrCreateChatroomModel() {
-        FirebaseUtil.getChatroomReference(chatroomId).get().addOnCompleteListener(task -> {
-            if(task.isSuccessful()){
-                chatroomModel = task.getResult().toObject(ChatroomModel.class);
-                if(chatroomModel == null) {
-                    chatroomModel = new ChatroomModel(
-                            chatroomId,
-                            Arrays.asList(FirebaseUtil.currentUserId(), otherUser.getUserId()),
-                            Timestamp.now(),
-                            ""
-                    );
-                    FirebaseUtil.getChatroomReference(chatroomId).set(chatroomModel);
-                }
-            }
+        Task<DocumentSnapshot> read = FirebaseUtil.getCacheFirst(FirebaseUtil.getChatroomReference(chatroomId));
+        PerfTracer.track("firestore.read.chatroom", read)
+                .continueWith(AppExecutors.compute(), task -> Mappers.toObject(task.getResult(), ChatroomModel.class))
+                .addOnCompleteListener(task -> {
+                    if(task.isSuccessful()){
+                        chatroomModel = task.getResult();
+                        if(chatroomModel == null) {
+                            chatroomModel = new ChatroomModel(
+                                    chatroomId,
+                                    Arrays.asList(FirebaseUtil.currentUserId(), otherUser.getUserId()),
+                                    Timestamp.now(),
+                                    ""
+                            );
+                            FirebaseUtil.getChatroomReference(chatroomId).set(Mappers.toMap(chatroomModel));
+                        }
+                        if(!hasParticipantSummary(chatroomModel)) {
+                            fillParticipantSummary();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Checks whether the chatroom already stores the names of both participants.
+     * @param model The chatroom to check.
+     * @return True if no summary needs to be written.
+     */
+    boolean hasParticipantSummary(ChatroomModel model) {
+        return model.getParticipantNames() != null
+                && model.getParticipantNames().containsKey(FirebaseUtil.currentUserId())
+                && model.getParticipantNames().containsKey(otherUser.getUserId());
+    }
+
+    /**
+     * Writes both participants' usernames and profile picture URLs into the chatroom summary.
+     */
+    void fillParticipantSummary() {
+        UserCache.getInstance().get(FirebaseUtil.currentUserId()).addOnSuccessListener(currentUser -> {
+            if(currentUser == null)
+                return;
+            FirebaseUtil.getChatroomReference(chatroomId).update(
+                    FieldPath.of("participantNames", currentUser.getUserId()), currentUser.getUsername(),
+                    FieldPath.of("participantPicUrls", currentUser.getUserId()), currentUser.getProfilePicUrl(),
+                    FieldPath.of("participantNames", otherUser.getUserId()), otherUser.getUsername(),
+                    FieldPath.of("participantPicUrls", otherUser.getUserId()), otherUser.getProfilePicUrl());
         });
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.example.ezchat;
 
 import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -8,20 +10,23 @@ import androidx.recyclerview.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
 
 import com.example.ezchat.adapter.RecentChatRecyclerAdapter;
-import com.example.ezchat.model.ChatroomModel;
-import com.example.ezchat.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
-import com.google.firebase.firestore.Query;
+import com.example.ezchat.repository.ChatroomListRepository;
+import com.example.ezchat.repository.SyncStatus;
+import com.example.ezchat.utils.AndroidUtil;
+import com.example.ezchat.utils.StartupMetrics;
 /**
  * Fragment for displaying a list of recent chats in a RecyclerView.
- * Integrates with Firestore to fetch and display chatroom data in real-time.
+ * Observes the app-scoped chatroom list, so recreating the view does not query Firestore again.
+ * A banner tells the user when the list comes from the local cache or has unsent changes.
  */
 public class ChatFragment extends Fragment {
     // UI Components
     RecyclerView recyclerView; // RecyclerView to display recent chats
     RecentChatRecyclerAdapter adapter; // Adapter for managing chat data
+    TextView syncStatusText; // Banner showing the offline and pending states
     /**
      * Default constructor for ChatFragment.
      */
@@ -40,56 +45,58 @@ public class ChatFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_chat, container, false);
         // Initialize the RecyclerView
         recyclerView = view.findViewById(R.id.recycler_view);
+        syncStatusText = view.findViewById(R.id.sync_status_text);
         // Set up the RecyclerView to display recent chats
         setupRecyclerView();
         return view;
     }
     /**
-     * Configures the RecyclerView with Firestore data for displaying recent chats.
-     */
-    void setupRecyclerView() {
-        // Query Firestore to fetch chatrooms for the current user, ordered by the latest message timestamp
-        Query query = FirebaseUtil.allChatroomCollectionReference()
-                .whereArrayContains("userIds", FirebaseUtil.currentUserId())
-                .orderBy("lastMessageTimestamp", Query.Direction.DESCENDING);
-        // Configure FirestoreRecyclerOptions for the RecentChatRecyclerAdapter
-        FirestoreRecyclerOptions<ChatroomModel> options = new FirestoreRecyclerOptions.Builder<ChatroomModel>()
-                .setQuery(query, ChatroomModel.class)
-                .build();
-        // Initialize the adapter and bind it to the RecyclerView
-        adapter = new RecentChatRecyclerAdapter(options, getContext());
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext())); // Set linear layout
-        recyclerView.setAdapter(adapter); // Attach the adapter
-        adapter.startListening(); // Start listening for Firestore data updates
-    }
-    /**
-     * Starts the adapter listening when the fragment is started.
+     * Observes the shared chatroom list for as long as the view exists. Each update is handed
+     * to the adapter, which diffs it against the rows already shown. Once the first list has
+     * been laid out, the start of the app is reported as complete. If the list stops updating,
+     * the error is shown as a toast.
+     * @param view               The View returned by onCreateView.
+     * @param savedInstanceState Saved instance state for the fragment.
      */
     @Override
-    public void onStart() {
-        super.onStart();
-        if (adapter != null) {
-            adapter.startListening();
-        }
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        ChatroomListRepository.getInstance().observe(getViewLifecycleOwner(), chatrooms -> {
+            if (chatrooms == null) {
+                adapter.submitList(null);
+                return;
+            }
+            adapter.submitList(chatrooms, () -> recyclerView.post(() -> {
+                if (getActivity() != null) {
+                    StartupMetrics.onFirstChatRowDrawn(getActivity());
+                }
+            }));
+        });
+        ChatroomListRepository.getInstance().getSyncStatus().observe(getViewLifecycleOwner(), this::showSyncStatus);
+        ChatroomListRepository.getInstance().getError().observe(getViewLifecycleOwner(), e -> {
+            if (e != null) {
+                AndroidUtil.showToast(getContext(), "Failed to load chats: " + e.getMessage());
+            }
+        });
     }
     /**
-     * Stops the adapter listening when the fragment is stopped.
+     * Shows or hides the sync status banner.
+     * @param status The status of the chatroom list, or null while none is loaded.
      */
-    @Override
-    public void onStop() {
-        super.onStop();
-        if (adapter != null) {
-            adapter.stopListening();
+    void showSyncStatus(SyncStatus status) {
+        if (status == null || status.getLabel() == 0) {
+            syncStatusText.setVisibility(View.GONE);
+            return;
         }
+        syncStatusText.setText(status.getLabel());
+        syncStatusText.setVisibility(View.VISIBLE);
     }
     /**
-     * Notifies the adapter to refresh data when the fragment is resumed.
+     * Configures the RecyclerView that displays recent chats.
      */
-    @Override
-    public void onResume() {
-        super.onResume();
-        if (adapter != null) {
-            adapter.notifyDataSetChanged();
-        }
+    void setupRecyclerView() {
+        adapter = new RecentChatRecyclerAdapter(getContext());
+        recyclerView.setLayoutManager(new LinearLayoutManager(getContext())); // Set linear layout
+        recyclerView.setAdapter(adapter); // Attach the adapter
     }
 }
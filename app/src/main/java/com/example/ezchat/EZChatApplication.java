@@ -0,0 +1,85 @@
+package com.example.ezchat;
+
+import android.app.Application;
+import android.content.res.Configuration;
+import android.os.StrictMode;
+
+import androidx.annotation.NonNull;
+
+import com.example.ezchat.repository.ChatroomListRepository;
+import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.FirestoreCachePolicy;
+import com.example.ezchat.utils.OutboundMessageQueue;
+import com.example.ezchat.utils.TimeFormatter;
+import com.example.ezchat.utils.UserCache;
+
+/**
+ * Application entry point. When a user is signed in, the data the first screen needs is
+ * requested here, in parallel with the launch of the first activity: the chatroom list
+ * listener, which answers from Firestore's local cache first, and the current user's profile.
+ * Messages left unsent by a previous process are resent as well.
+ * Firestore keeps a persistent cache sized by {@link FirestoreCachePolicy}, so screens render
+ * from disk first and keep working offline.
+ * Debug builds log disk and network access on the main thread, and leaked resources.
+ */
+public class EZChatApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            enableStrictMode();
+        }
+        // Settings must be applied before Firestore is used
+        FirestoreCachePolicy.apply(this);
+        applyDayLabels();
+        if (FirebaseUtil.isLoggedIn()) {
+            prewarm();
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        applyDayLabels();
+    }
+
+    /**
+     * Hands the localized "Today" and "Yesterday" labels to the shared TimeFormatter.
+     */
+    void applyDayLabels() {
+        TimeFormatter.getInstance().setDayLabels(getString(R.string.today), getString(R.string.yesterday));
+    }
+
+    /**
+     * Starts loading what the first screen shows for the signed-in user. Once the profile
+     * arrives, its search key is written if it is missing, so accounts created before user
+     * search existed can be found.
+     */
+    void prewarm() {
+        ChatroomListRepository.getInstance().prewarm();
+        UserCache.getInstance().get(FirebaseUtil.currentUserId())
+                .addOnSuccessListener(FirebaseUtil::backfillSearchKey);
+        OutboundMessageQueue.getInstance(this).resumePending();
+    }
+
+    /**
+     * Logs main-thread disk reads and writes, network access and slow calls marked with
+     * StrictMode.noteSlowCall, as well as unclosed resources and leaked activities.
+     */
+    void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .detectCustomSlowCalls()
+                .penaltyLog()
+                .build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedClosableObjects()
+                .detectLeakedSqlLiteObjects()
+                .detectActivityLeaks()
+                .penaltyLog()
+                .build());
+    }
+}
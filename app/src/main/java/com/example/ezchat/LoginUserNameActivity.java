@@ -9,8 +9,10 @@ import android.widget.ProgressBar;
 import androidx.activity.EdgeToEdge;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import com.example.ezchat.mapper.Mappers;
 import com.example.ezchat.model.UserModel;
 import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.UserCache;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.Timestamp;
@@ -63,11 +65,12 @@ public class LoginUserNameActivity extends AppCompatActivity {
             userModel = new UserModel(phoneNumber, username, Timestamp.now(), FirebaseUtil.currentUserId());
         }
 
-        FirebaseUtil.currentUserDetails().set(userModel).addOnCompleteListener(new OnCompleteListener<Void>() {
+        FirebaseUtil.currentUserDetails().set(Mappers.toMap(userModel)).addOnCompleteListener(new OnCompleteListener<Void>() {
             @Override
             public void onComplete(@NonNull Task<Void> task) {
                 setInProgress(false);
                 if (task.isSuccessful()) {
+                    UserCache.getInstance().put(userModel);
                     Intent intent = new Intent(LoginUserNameActivity.this, MainActivity.class);
                     intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
                     startActivity(intent);
@@ -82,10 +85,10 @@ public class LoginUserNameActivity extends AppCompatActivity {
 
     void getUsername(){
         setInProgress(true);
-        FirebaseUtil.currentUserDetails().get().addOnCompleteListener(task -> {
+        UserCache.getInstance().get(FirebaseUtil.currentUserId()).addOnCompleteListener(task -> {
             setInProgress(false);
             if(task.isSuccessful()){
-                UserModel userModel = task.getResult().toObject(UserModel.class);
+                UserModel userModel = task.getResult();
                 if(userModel != null){
                     usernameInput.setText(userModel.getUsername());
                 }
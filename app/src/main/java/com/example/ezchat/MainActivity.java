@@ -1,15 +1,24 @@
 package com.example.ezchat;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.MenuItem;
 import android.widget.ImageButton;
 
+import java.io.File;
+import java.io.IOException;
+
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
 
+import com.example.ezchat.utils.AndroidUtil;
 import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.PerfTracer;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.navigation.NavigationBarView;
 import com.google.firebase.messaging.FirebaseMessaging;
@@ -19,16 +28,45 @@ public class MainActivity extends AppCompatActivity {
     BottomNavigationView bottomNavigationView;
     ImageButton searchButton;
 
+    static final String TAG_CHAT = "chat";
+    static final String TAG_PROFILE = "profile";
+
     ChatFragment chatFragment;
     ProfileFragment profileFragment;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        PerfTracer.Span span = PerfTracer.begin("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        chatFragment = new ChatFragment();
-        profileFragment = new ProfileFragment();
+        // Both tabs are added once and then shown or hidden, so their views, scroll positions
+        // and loaded data survive tab switches. After recreation the restored fragments are reused
+        // and only a missing one is created.
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        chatFragment = (ChatFragment) fragmentManager.findFragmentByTag(TAG_CHAT);
+        profileFragment = (ProfileFragment) fragmentManager.findFragmentByTag(TAG_PROFILE);
+        if(chatFragment == null || profileFragment == null){
+            boolean addChat = chatFragment == null;
+            boolean addProfile = profileFragment == null;
+            // The chat tab shows unless a restored fragment says the profile tab was showing
+            boolean showProfile = addChat ? !addProfile && !profileFragment.isHidden() : chatFragment.isHidden();
+            FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+            if(addChat){
+                chatFragment = new ChatFragment();
+                transaction.add(R.id.main_frame_layout,chatFragment,TAG_CHAT);
+            }
+            if(addProfile){
+                profileFragment = new ProfileFragment();
+                transaction.add(R.id.main_frame_layout,profileFragment,TAG_PROFILE);
+            }
+            if(showProfile){
+                transaction.show(profileFragment).hide(chatFragment);
+            }else{
+                transaction.show(chatFragment).hide(profileFragment);
+            }
+            transaction.commitNow();
+        }
 
         bottomNavigationView = findViewById(R.id.bottom_navigation);
         searchButton = findViewById(R.id.main_search_btn);
@@ -36,23 +74,53 @@ public class MainActivity extends AppCompatActivity {
         searchButton.setOnClickListener((v)->{
             startActivity(new Intent(MainActivity.this,SearchUserActivity.class));
         });
+        // Debug builds export the latency report when the search button is long-pressed
+        if((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0){
+            searchButton.setOnLongClickListener(v -> {
+                exportPerfReport();
+                return true;
+            });
+        }
 
         bottomNavigationView.setOnItemSelectedListener(new NavigationBarView.OnItemSelectedListener() {
             @Override
             public boolean onNavigationItemSelected(@NonNull MenuItem item) {
                 if(item.getItemId()==R.id.menu_chat){
-                    getSupportFragmentManager().beginTransaction().replace(R.id.main_frame_layout,chatFragment).commit();
+                    showTab(chatFragment,profileFragment);
                 }
                 if(item.getItemId()==R.id.menu_profile){
-                    getSupportFragmentManager().beginTransaction().replace(R.id.main_frame_layout,profileFragment).commit();
+                    showTab(profileFragment,chatFragment);
                 }
                 return true;
             }
         });
-        bottomNavigationView.setSelectedItemId(R.id.menu_chat);
+        // On recreation the navigation view restores its selection and the fragments their visibility
+        if(savedInstanceState == null){
+            bottomNavigationView.setSelectedItemId(R.id.menu_chat);
+        }
 
         getFCMToken();
+        span.end();
+
+    }
+
+    void exportPerfReport(){
+        try {
+            File report = PerfTracer.writeReport(this);
+            AndroidUtil.showToast(this,"Perf report written to "+report.getAbsolutePath());
+        } catch (IOException e) {
+            AndroidUtil.showToast(this,"Failed to write perf report");
+        }
+    }
 
+    void showTab(Fragment shown, Fragment hidden){
+        if(shown.isHidden() || !hidden.isHidden()){
+            getSupportFragmentManager().beginTransaction()
+                    .setReorderingAllowed(true)
+                    .show(shown)
+                    .hide(hidden)
+                    .commit();
+        }
     }
 
     void getFCMToken(){
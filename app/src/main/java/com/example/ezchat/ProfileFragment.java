@@ -22,8 +22,11 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import com.example.ezchat.model.UserModel;
+import com.example.ezchat.repository.UserRepository;
 import com.example.ezchat.utils.AndroidUtil;
+import com.example.ezchat.utils.AvatarUrlCache;
 import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.UserCache;
 import com.github.dhaval2404.imagepicker.ImagePicker;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
@@ -122,17 +125,22 @@ public class ProfileFragment extends Fragment {
     }
     /**
      * Handles the update profile button click. Validates username input and uploads
-     * the selected profile picture, if any, before updating Firestore.
+     * the selected profile picture, if any, before updating Firestore. The changes are made
+     * on a copy of the profile, which only replaces the current one once the write succeeds.
      */
     @OptIn(markerClass = UnstableApi.class)
     void updateBtnClick() {
+        if (currentUserModel == null) {
+            return;
+        }
         String newUsername = usernameInput.getText().toString();
         if (newUsername.isEmpty() || newUsername.length() < 3) {
             usernameInput.setError("Username length should be at least 3 chars");
             return;
         }
 
-        currentUserModel.setUsername(newUsername);
+        UserModel updatedUser = new UserModel(currentUserModel);
+        updatedUser.setUsername(newUsername);
         setInProgress(true);
 
         // If a new profile picture is selected, upload it
@@ -145,8 +153,8 @@ public class ProfileFragment extends Fragment {
                     .addOnSuccessListener(taskSnapshot -> {
                         storageRef.getDownloadUrl()
                                 .addOnSuccessListener(uri -> {
-                                    currentUserModel.setProfilePicUrl(uri.toString());
-                                    updateToFirestore();
+                                    updatedUser.setProfilePicUrl(uri.toString());
+                                    updateToFirestore(updatedUser);
                                 })
                                 .addOnFailureListener(e -> {
                                     setInProgress(false);
@@ -161,21 +169,33 @@ public class ProfileFragment extends Fragment {
                     });
         } else {
             // If no new profile picture is selected, update Firestore directly
-            updateToFirestore();
+            updateToFirestore(updatedUser);
         }
     }
     /**
-     * Updates the user profile in Firestore with the current user model data.
+     * Updates the user profile in Firestore and, once the write succeeds, makes the updated
+     * profile the current one and shares it with the caches.
+     * @param updatedUser A copy of the current profile with the user's changes applied.
      */
     @OptIn(markerClass = UnstableApi.class)
-    void updateToFirestore() {
+    void updateToFirestore(UserModel updatedUser) {
         DocumentReference docRef = FirebaseFirestore.getInstance()
                 .collection("users").document(FirebaseAuth.getInstance().getCurrentUser().getUid());
 
-        docRef.update("profilePicUrl", currentUserModel.getProfilePicUrl(), "username", currentUserModel.getUsername())
+        docRef.update("profilePicUrl", updatedUser.getProfilePicUrl(), "username", updatedUser.getUsername(),
+                        "searchKey", updatedUser.getSearchKey())
                 .addOnSuccessListener(aVoid -> {
                     setInProgress(false);
                     AndroidUtil.showToast(getContext(), "Profile updated successfully");
+                    currentUserModel = updatedUser;
+                    UserCache.getInstance().put(updatedUser);
+                    if (selectedImageUri != null) {
+                        // Replace the cached picture URL so other screens show the new picture
+                        AvatarUrlCache.getInstance(requireContext()).put(updatedUser.getUserId(), updatedUser.getProfilePicUrl());
+                    }
+                    // Keep the username and picture shown in other users' chat lists in sync
+                    FirebaseUtil.updateParticipantSummaries(updatedUser)
+                            .addOnFailureListener(e -> Log.e("ProfileFragment", "Failed to update chatroom summaries", e));
                 })
                 .addOnFailureListener(e -> {
                     setInProgress(false);
@@ -183,29 +203,39 @@ public class ProfileFragment extends Fragment {
                 });
     }
     /**
-     * Fetches the current user data from Firestore and populates the UI fields.
+     * Observes the current user's profile and populates the UI fields. The username is only
+     * filled in when the profile first loads, so later updates do not overwrite what is being typed.
      */
     void getUserData() {
         setInProgress(true);
+        currentUserModel = null;
 
-        FirebaseUtil.currentUserDetails().get().addOnCompleteListener(task -> {
-            setInProgress(false);
-            if (task.isSuccessful()) {
-                currentUserModel = task.getResult().toObject(UserModel.class);
-                if (currentUserModel != null) {
-                    usernameInput.setText(currentUserModel.getUsername());
-                    phoneInput.setText(currentUserModel.getPhone());
-                    if (currentUserModel.getProfilePicUrl() != null && !currentUserModel.getProfilePicUrl().isEmpty()) {
-                        Uri uri = Uri.parse(currentUserModel.getProfilePicUrl());
-                        AndroidUtil.setProfilePic(getContext(), uri, profilePic);
-                    } else {
-                        profilePic.setImageResource(R.drawable.ic_person);
-                    }
-                } else {
-                    AndroidUtil.showToast(getContext(), "User data is null");
-                }
+        UserRepository.getInstance().observeUser(FirebaseUtil.currentUserId()).observe(getViewLifecycleOwner(), loaded -> {
+            if (loaded.getError() != null) {
+                setInProgress(false);
+                AndroidUtil.showToast(getContext(), "Failed to fetch user data: " + loaded.getError().getMessage());
+                return;
+            }
+            UserModel user = loaded.getValue();
+            if (user == null) {
+                setInProgress(false);
+                AndroidUtil.showToast(getContext(), "User data is null");
+                return;
+            }
+            if (currentUserModel == null) {
+                setInProgress(false);
+                usernameInput.setText(user.getUsername());
+            }
+            currentUserModel = user;
+            phoneInput.setText(user.getPhone());
+            if (selectedImageUri != null) {
+                return;
+            }
+            if (user.getProfilePicUrl() != null && !user.getProfilePicUrl().isEmpty()) {
+                Uri uri = Uri.parse(user.getProfilePicUrl());
+                AndroidUtil.setProfilePic(getContext(), uri, profilePic);
             } else {
-                AndroidUtil.showToast(getContext(), "Failed to fetch user data: " + Objects.requireNonNull(task.getException()).getMessage());
+                profilePic.setImageResource(R.drawable.ic_person);
             }
         });
     }
@@ -1,31 +1,58 @@
 package com.example.ezchat;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.ezchat.adapter.SearchUserRecyclerAdapter;
+import com.example.ezchat.mapper.Mappers;
 import com.example.ezchat.model.UserModel;
+import com.example.ezchat.utils.AppExecutors;
+import com.example.ezchat.utils.ContactSearchIndex;
 import com.example.ezchat.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
-import com.google.firebase.firestore.Query;
+import com.example.ezchat.utils.PerfTracer;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Activity for searching users by their username. Displays a search bar and a RecyclerView
  * for showing matching user profiles fetched from Firebase Firestore.
+ * Results are answered immediately from the on-device contact index, then completed with a
+ * bounded prefix query on the users' normalized search key once input has been idle for a short delay.
  */
 public class SearchUserActivity extends AppCompatActivity {
+    // Minimum number of characters before a search is run
+    static final int MIN_SEARCH_LENGTH = 3;
+    // Maximum number of users returned per search
+    static final int SEARCH_PAGE_SIZE = 20;
+    // Delay after the last keystroke before searching, in milliseconds
+    static final long SEARCH_DEBOUNCE_MILLIS = 300;
+
     // UI Components
     EditText searchInput; // Input field for entering the username to search
     ImageButton searchButton; // Button to trigger the search
     ImageButton backButton; // Button to navigate back to the previous activity
     RecyclerView recyclerView; // RecyclerView to display the search results
     SearchUserRecyclerAdapter adapter; // Adapter for managing search results
+
+    final Handler searchHandler = new Handler(Looper.getMainLooper()); // Schedules debounced searches
+    Runnable pendingSearch; // Search waiting for typing to pause
+    int searchGeneration; // Incremented per search so late results of older searches are ignored
     /**
      * Initializes the search user activity, sets up UI components, and adds listeners for
-     * the back and search buttons.
+     * the back and search buttons and for typing in the search field.
      * @param savedInstanceState The saved instance state for the activity.
      */
     @Override
@@ -37,69 +64,136 @@ public class SearchUserActivity extends AppCompatActivity {
         searchButton = findViewById(R.id.search_user_btn);
         backButton = findViewById(R.id.back_btn);
         recyclerView = findViewById(R.id.search_user_recycler_view);
+        // Set up the RecyclerView once; each search only replaces the results
+        setupSearchRecyclerView();
         // Automatically focus on the search input field
         searchInput.requestFocus();
         // Listener for the back button to navigate back
         backButton.setOnClickListener(v -> onBackPressed());
-        // Listener for the search button to validate input and trigger search
+        // Listener for the search button to validate input and trigger search immediately
         searchButton.setOnClickListener(v -> {
             String searchTerm = searchInput.getText().toString();
             // Validate search term
-            if (searchTerm.isEmpty() || searchTerm.length() < 3) {
+            if (searchTerm.isEmpty() || searchTerm.length() < MIN_SEARCH_LENGTH) {
                 searchInput.setError("Invalid Username"); // Show error if invalid
                 return;
             }
-            // Set up the RecyclerView for displaying search results
-            setupSearchRecyclerView(searchTerm);
+            cancelPendingSearch();
+            searchUsers(searchTerm);
+        });
+        // Search as the user types, once typing pauses
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                scheduleSearch(s.toString());
+            }
         });
     }
     /**
-     * Configures the RecyclerView to display search results for users whose usernames
-     * match the search term.
-     * @param searchTerm The search term to filter usernames.
+     * Attaches the adapter that displays search results.
      */
-    void setupSearchRecyclerView(String searchTerm) {
-        // Query Firestore for usernames matching the search term
-        Query query = FirebaseUtil.allUserCollectionReference()
-                .whereGreaterThanOrEqualTo("username", searchTerm);
-        // Set up FirestoreRecyclerOptions with the query
-        FirestoreRecyclerOptions<UserModel> options = new FirestoreRecyclerOptions.Builder<UserModel>()
-                .setQuery(query, UserModel.class)
-                .build();
-        // Initialize the adapter with options and bind it to the RecyclerView
-        adapter = new SearchUserRecyclerAdapter(options, getApplicationContext());
+    void setupSearchRecyclerView() {
+        adapter = new SearchUserRecyclerAdapter(getApplicationContext());
         recyclerView.setLayoutManager(new LinearLayoutManager(this)); // Set layout manager
         recyclerView.setAdapter(adapter); // Attach adapter to RecyclerView
-        adapter.startListening(); // Start listening for Firestore updates
     }
     /**
-     * Starts the adapter listening when the activity is started.
+     * Shows local matches for the given term right away, and runs a server search once no further
+     * input arrives within the debounce delay unless the local matches already fill a page.
+     * Terms shorter than the minimum length are only searched locally.
+     * @param searchTerm The current contents of the search field.
      */
-    @Override
-    protected void onStart() {
-        super.onStart();
-        if (adapter != null) {
-            adapter.startListening();
+    void scheduleSearch(String searchTerm) {
+        cancelPendingSearch();
+        searchGeneration++;
+        List<UserModel> localResults = searchTerm.trim().isEmpty()
+                ? new ArrayList<>()
+                : ContactSearchIndex.getInstance().search(searchTerm, SEARCH_PAGE_SIZE);
+        adapter.setUsers(localResults);
+        if (searchTerm.trim().length() < MIN_SEARCH_LENGTH || localResults.size() >= SEARCH_PAGE_SIZE) {
+            return;
         }
+        pendingSearch = () -> searchUsers(searchTerm);
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MILLIS);
     }
     /**
-     * Stops the adapter listening when the activity is stopped.
+     * Cancels a search that is still waiting for typing to pause.
      */
-    @Override
-    protected void onStop() {
-        super.onStop();
-        if (adapter != null) {
-            adapter.stopListening();
+    void cancelPendingSearch() {
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
         }
     }
     /**
-     * Resumes the adapter listening when the activity is resumed.
+     * Queries Firestore for a bounded page of users whose search key starts with the search term,
+     * and merges them behind the local matches.
+     * @param searchTerm The search term to match against usernames.
      */
-    @Override
-    protected void onResume() {
-        super.onResume();
-        if (adapter != null) {
-            adapter.startListening();
+    void searchUsers(String searchTerm) {
+        String prefix = UserModel.toSearchKey(searchTerm);
+        int generation = ++searchGeneration;
+        List<UserModel> localResults = ContactSearchIndex.getInstance().search(searchTerm, SEARCH_PAGE_SIZE);
+        Task<QuerySnapshot> search = FirebaseUtil.allUserCollectionReference()
+                .orderBy("searchKey")
+                .startAt(prefix)
+                .endAt(prefix + "\uf8ff")
+                .limit(SEARCH_PAGE_SIZE)
+                .get();
+        // Results are mapped and merged on the compute executor
+        PerfTracer.track("firestore.read.userSearch", search)
+                .continueWith(AppExecutors.compute(), task -> {
+                    List<UserModel> serverResults = new ArrayList<>();
+                    for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                        UserModel user = Mappers.toObject(document, UserModel.class);
+                        if (user != null) {
+                            serverResults.add(user);
+                        }
+                    }
+                    ContactSearchIndex.getInstance().addSearchResults(serverResults);
+                    return mergeResults(localResults, serverResults);
+                })
+                .addOnCompleteListener(task -> {
+                    // Ignore results of a search that has since been replaced
+                    if (generation != searchGeneration || !task.isSuccessful()) {
+                        return;
+                    }
+                    adapter.setUsers(task.getResult());
+                });
+    }
+    /**
+     * Merges server results behind local ones. A server copy of a local user replaces it in place,
+     * since it carries the full profile.
+     * @param localResults  Users found in the on-device index.
+     * @param serverResults Users returned by Firestore.
+     * @return At most one page of users.
+     */
+    static List<UserModel> mergeResults(List<UserModel> localResults, List<UserModel> serverResults) {
+        Map<String, UserModel> merged = new LinkedHashMap<>();
+        for (UserModel user : localResults) {
+            merged.put(user.getUserId(), user);
+        }
+        for (UserModel user : serverResults) {
+            if (merged.containsKey(user.getUserId()) || merged.size() < SEARCH_PAGE_SIZE) {
+                merged.put(user.getUserId(), user);
+            }
         }
+        return new ArrayList<>(merged.values());
+    }
+    /**
+     * Cancels any pending search when the activity is stopped.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        cancelPendingSearch();
     }
 }
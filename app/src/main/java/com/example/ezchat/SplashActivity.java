@@ -3,28 +3,28 @@ package com.example.ezchat;
 import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
 import androidx.appcompat.app.AppCompatActivity;
 import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.PerfTracer;
 
 @SuppressLint("CustomSplashScreen")
 public class SplashActivity extends AppCompatActivity {
 
     /**
-     * Initializes the splash screen activity, waits briefly, then checks login status to navigate accordingly.
+     * Checks login status and navigates accordingly right away. The check is synchronous and the
+     * first screen's data is already being loaded by EZChatApplication, so there is nothing to wait for.
      * @param savedInstanceState The saved instance state for the activity.
      */
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        PerfTracer.Span span = PerfTracer.begin("SplashActivity.onCreate");
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_splash);
-        new Handler().postDelayed(() -> {
-            if (FirebaseUtil.isLoggedIn()) {
-                startActivity(new Intent(SplashActivity.this, MainActivity.class));
-            } else {
-                startActivity(new Intent(SplashActivity.this, LoginPhoneNumberActivity.class));
-            }
-            finish();
-        }, 1000);
+        if (FirebaseUtil.isLoggedIn()) {
+            startActivity(new Intent(SplashActivity.this, MainActivity.class));
+        } else {
+            startActivity(new Intent(SplashActivity.this, LoginPhoneNumberActivity.class));
+        }
+        finish();
+        span.end();
     }
 }
\ No newline at end of file
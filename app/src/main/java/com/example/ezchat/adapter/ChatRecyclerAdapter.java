@@ -4,89 +4,369 @@ import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.ezchat.R;
-import com.example.ezchat.model.ChatMessageModel;
-import com.example.ezchat.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+import com.example.ezchat.model.MessageItem;
+import com.example.ezchat.repository.ConflatingMapper;
+import com.example.ezchat.utils.AndroidUtil;
+import com.example.ezchat.utils.AppExecutors;
+import com.example.ezchat.utils.PrecomputedTextCache;
+import com.example.ezchat.utils.TimeFormatter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This adapter class to bind the chat messages data to a RecyclerView in a chat application.
- * It extends FirestoreRecyclerAdapter for automatic data population from Firebase Firestore.
+ * Messages are supplied page by page by a ChatMessagePager, newest first. Their rows are built
+ * on the compute executor and diffed off the main thread, so only changed rows are rebound. Each item already knows whether the current
+ * user sent it, so binding does not compare sender IDs.
+ *
+ * Sent and received messages use separate view types with a single bubble each, so a recycled
+ * row never changes side. Consecutive messages of one sender are grouped with a smaller gap,
+ * and a date separator is shown above the first message of every day. Rows of all types are
+ * recycled through one pool shared by every chat screen.
+ *
+ * Message texts are measured on the compute executor as soon as a list arrives, so binding a
+ * bubble usually only attaches text that is already measured.
+ *
+ * Messages that could not be sent are marked as such, and tapping them hands them to the
+ * {@link RetryListener}.
  */
-public class ChatRecyclerAdapter extends FirestoreRecyclerAdapter<ChatMessageModel, ChatRecyclerAdapter.ChatModelViewHolder> {
+public class ChatRecyclerAdapter extends RecyclerView.Adapter<ChatRecyclerAdapter.RowViewHolder> {
+
+    /**
+     * Receives taps on messages that could not be sent.
+     */
+    public interface RetryListener {
+        /**
+         * Called when the user taps a failed message.
+         * @param message The message to send again.
+         */
+        void onRetry(MessageItem message);
+    }
+
+    static final float PENDING_ALPHA = 0.6f;
+
+    static final int VIEW_TYPE_SENT = 0;
+    static final int VIEW_TYPE_SENT_GROUPED = 1;
+    static final int VIEW_TYPE_RECEIVED = 2;
+    static final int VIEW_TYPE_RECEIVED_GROUPED = 3;
+    static final int VIEW_TYPE_DATE_SEPARATOR = 4;
+
+    // Messages of one sender closer together than this are grouped
+    static final long GROUP_WINDOW_NANOS = 5 * 60 * 1_000_000_000L;
+    // Enough recycled bubbles of each side to refill a screen after a fling
+    private static final int MAX_RECYCLED_MESSAGES = 20;
+    private static final int MAX_RECYCLED_SEPARATORS = 4;
+
+    private static RecyclerView.RecycledViewPool sharedViewPool;
+
+    static final DiffUtil.ItemCallback<ChatRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<ChatRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ChatRow oldItem, @NonNull ChatRow newItem) {
+            return oldItem.id == newItem.id && oldItem.viewType == newItem.viewType;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ChatRow oldItem, @NonNull ChatRow newItem) {
+            if (oldItem.message == null || newItem.message == null) {
+                return oldItem.dayLabel.equals(newItem.dayLabel);
+            }
+            return oldItem.message.hasSameContents(newItem.message);
+        }
+    };
+
     Context context;
+    final AsyncListDiffer<ChatRow> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // Only the newest message list of a burst has its rows built
+    private final ConflatingMapper<List<MessageItem>, List<ChatRow>> rowBuilder = new ConflatingMapper<>(
+            AppExecutors.compute(), messages -> toRows(messages, TimeFormatter.getInstance()), differ::submitList);
+    // Created with the text style of the first inflated bubble
+    private PrecomputedTextCache textCache;
+    private List<MessageItem> messages = Collections.emptyList();
+    private RetryListener retryListener;
 
     /**
      * Constructor for ChatRecyclerAdapter
      *
-     * @param options FirestoreRecyclerOptions object containing options to configure firestore data
      * @param context The context in which the adapter will operate, used for inflating layouts
      */
-    public ChatRecyclerAdapter(@NonNull FirestoreRecyclerOptions<ChatMessageModel> options, Context context) {
-        super(options);
+    public ChatRecyclerAdapter(Context context) {
         this.context = context;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Returns the view pool shared by the message lists of all chat screens, so opening another
+     * chat reuses the rows inflated for the previous one. Rows are inflated with the application
+     * context, so pooled views do not keep a finished activity alive.
+     * Must be called on the main thread.
+     * @return The shared pool.
+     */
+    public static RecyclerView.RecycledViewPool getSharedViewPool() {
+        if (sharedViewPool == null) {
+            sharedViewPool = new RecyclerView.RecycledViewPool();
+            sharedViewPool.setMaxRecycledViews(VIEW_TYPE_SENT, MAX_RECYCLED_MESSAGES);
+            sharedViewPool.setMaxRecycledViews(VIEW_TYPE_SENT_GROUPED, MAX_RECYCLED_MESSAGES);
+            sharedViewPool.setMaxRecycledViews(VIEW_TYPE_RECEIVED, MAX_RECYCLED_MESSAGES);
+            sharedViewPool.setMaxRecycledViews(VIEW_TYPE_RECEIVED_GROUPED, MAX_RECYCLED_MESSAGES);
+            sharedViewPool.setMaxRecycledViews(VIEW_TYPE_DATE_SEPARATOR, MAX_RECYCLED_SEPARATORS);
+        }
+        return sharedViewPool;
+    }
+
+    /**
+     * Sets the listener notified when the user taps a message that could not be sent.
+     * @param retryListener The listener, or null to ignore taps.
+     */
+    public void setRetryListener(RetryListener retryListener) {
+        this.retryListener = retryListener;
+    }
+
+    /**
+     * Replaces the messages shown by the adapter. Must be called on the main thread, and the
+     * list must not be changed afterwards, since its rows are built in the background.
+     *
+     * @param messages Messages ordered from newest to oldest.
+     */
+    public void setMessages(List<MessageItem> messages) {
+        this.messages = messages;
+        if (textCache != null) {
+            textCache.prefetch(messages);
+        }
+        rowBuilder.submit(messages);
+    }
+
+    /**
+     * Builds the rows of a message list: each message with the view type of its side and
+     * grouping, and a date separator after the oldest message of each day. The list is laid
+     * out in reverse, so the separator is drawn above that day's messages.
+     * @param messages  Messages ordered from newest to oldest.
+     * @param formatter Decides the local day of a message and labels the separators.
+     * @return The rows, newest first.
+     */
+    static List<ChatRow> toRows(List<MessageItem> messages, TimeFormatter formatter) {
+        int size = messages.size();
+        List<ChatRow> rows = new ArrayList<>(size + size / 8 + 1);
+        long[] days = new long[size];
+        for (int i = 0; i < size; i++) {
+            long nanos = messages.get(i).getTimestampNanos();
+            // Messages without a server time yet belong to the day of the next newer message
+            days[i] = nanos == 0 && i > 0 ? days[i - 1] : formatter.epochDay(nanos / 1_000_000_000L);
+        }
+        for (int i = 0; i < size; i++) {
+            MessageItem message = messages.get(i);
+            boolean lastOfDay = i == size - 1 || days[i + 1] != days[i];
+            boolean grouped = !lastOfDay && continuesGroup(messages.get(i + 1), message);
+            int viewType;
+            if (message.isMine()) {
+                viewType = grouped ? VIEW_TYPE_SENT_GROUPED : VIEW_TYPE_SENT;
+            } else {
+                viewType = grouped ? VIEW_TYPE_RECEIVED_GROUPED : VIEW_TYPE_RECEIVED;
+            }
+            rows.add(new ChatRow(message.getStableId(), viewType, message, null));
+            if (lastOfDay) {
+                rows.add(new ChatRow(AndroidUtil.stableId("day/" + days[i]), VIEW_TYPE_DATE_SEPARATOR,
+                        null, formatter.formatDay(days[i])));
+            }
+        }
+        return rows;
+    }
+
+    private static boolean continuesGroup(MessageItem older, MessageItem newer) {
+        return older.getSenderIndex() == newer.getSenderIndex()
+                && newer.getTimestampNanos() - older.getTimestampNanos() < GROUP_WINDOW_NANOS;
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return differ.getCurrentList().get(position).viewType;
     }
 
     /**
-     * Binds a chat message to the appropriate view holder, determining whether the message
-     * should be displayed on the left or right
+     * Binds a chat message or date separator to its view holder. The view type already decides
+     * the side of a message, so only texts and the pending state are set here.
      *
      * @param holder   the view holder where the data should be bound
      * @param position Position of the item in the adapter
-     * @param model    ChatMessageModel object containing data for a single chat message.
      */
     @Override
-    protected void onBindViewHolder(@NonNull ChatModelViewHolder holder, int position, @NonNull ChatMessageModel model) {
-        if (model.getSenderId().equals(FirebaseUtil.currentUserId())) {
-            holder.leftChatLayout.setVisibility(View.GONE);
-            holder.rightChatLayout.setVisibility(View.VISIBLE);
-            holder.rightChatTextview.setText(model.getMessage());
-        } else {
-            holder.rightChatLayout.setVisibility(View.GONE);
-            holder.leftChatLayout.setVisibility(View.VISIBLE);
-            holder.leftChatTextview.setText(model.getMessage());
+    public void onBindViewHolder(@NonNull RowViewHolder holder, int position) {
+        ChatRow row = differ.getCurrentList().get(position);
+        holder.bind(row);
+        if (holder instanceof MessageViewHolder) {
+            // Rows come from a pool shared with other chat screens, so the listener is set per bind
+            ((MessageViewHolder) holder).bindRetry(row.message, retryListener);
         }
     }
 
     /**
-     * Inflates the layout for each chat message row and returns a new ChatModelViewHolder
+     * Inflates the layout of a row type and returns its view holder. Grouped messages use the
+     * layout of their side with a smaller gap to the message above.
      *
      * @param parent   The ViewGroup into which the new View will be added after it is bound to
      *                 an adapter position.
      * @param viewType The view type of the new View.
-     * @return a new instance of ChatModelViewHolder containing this inflated view.
+     * @return a new view holder containing the inflated view.
      */
     @NonNull
     @Override
-    public ChatModelViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.chat_message_recycler_row, parent, false);
-        return new ChatModelViewHolder(view);
+    public RowViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(context);
+        if (viewType == VIEW_TYPE_DATE_SEPARATOR) {
+            return new DateSeparatorViewHolder(inflater.inflate(R.layout.chat_date_separator_row, parent, false));
+        }
+        boolean sent = viewType == VIEW_TYPE_SENT || viewType == VIEW_TYPE_SENT_GROUPED;
+        View view = inflater.inflate(sent ? R.layout.chat_message_sent_row : R.layout.chat_message_received_row,
+                parent, false);
+        if (viewType == VIEW_TYPE_SENT_GROUPED || viewType == VIEW_TYPE_RECEIVED_GROUPED) {
+            int groupedGap = context.getResources().getDimensionPixelSize(R.dimen.chat_grouped_message_gap);
+            view.setPadding(view.getPaddingLeft(), groupedGap, view.getPaddingRight(), view.getPaddingBottom());
+        }
+        AppCompatTextView messageTextview = view.findViewById(R.id.chat_message_textview);
+        PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(messageTextview);
+        if (textCache == null) {
+            textCache = new PrecomputedTextCache(params, AppExecutors.compute());
+            textCache.prefetch(messages);
+        }
+        // Measured text can only be attached to a TextView of the same style
+        return new MessageViewHolder(view, params.equals(textCache.getParams()) ? textCache : null);
+    }
+
+    /**
+     * One row of the message list: a message, or the separator above a day's messages.
+     */
+    static final class ChatRow {
+        final long id;
+        final int viewType;
+        // The message, or null for a date separator
+        final MessageItem message;
+        // The separator label, or null for a message
+        final String dayLabel;
+
+        ChatRow(long id, int viewType, MessageItem message, String dayLabel) {
+            this.id = id;
+            this.viewType = viewType;
+            this.message = message;
+            this.dayLabel = dayLabel;
+        }
+    }
+
+    /**
+     * Base ViewHolder class for the rows of the message list.
+     */
+    abstract static class RowViewHolder extends RecyclerView.ViewHolder {
+        RowViewHolder(@NonNull View itemView) {
+            super(itemView);
+        }
+
+        abstract void bind(ChatRow row);
     }
 
     /**
-     * ViewHolder class for individual chat message items in the RecyclerView.
-     * Holds references to the views for both left (other user) and right (current user) chat layouts.
+     * ViewHolder class for a single message bubble, sent or received.
      */
-    class ChatModelViewHolder extends RecyclerView.ViewHolder {
-        LinearLayout leftChatLayout, rightChatLayout;
-        TextView leftChatTextview, rightChatTextview;
+    static class MessageViewHolder extends RowViewHolder {
+        final View bubble;
+        final AppCompatTextView messageTextview;
+        final TextView timeTextview;
+        final PrecomputedTextCache textCache;
+
         /**
-         * Constructor for ChatModelViewHolder.
-         * @param itemView The view representing an individual chat message row
+         * Constructor for MessageViewHolder.
+         * @param itemView  The view representing a chat message row
+         * @param textCache The measured message texts, or null to measure while binding.
          */
-        public ChatModelViewHolder(@NonNull View itemView) {
+        MessageViewHolder(@NonNull View itemView, PrecomputedTextCache textCache) {
             super(itemView);
-            leftChatLayout = itemView.findViewById(R.id.left_chat_layout);
-            rightChatLayout = itemView.findViewById(R.id.right_chat_layout);
-            rightChatTextview = itemView.findViewById(R.id.right_chat_textview);
-            leftChatTextview = itemView.findViewById(R.id.left_chat_textview);
+            bubble = itemView.findViewById(R.id.chat_bubble_layout);
+            messageTextview = itemView.findViewById(R.id.chat_message_textview);
+            timeTextview = itemView.findViewById(R.id.chat_time_textview);
+            this.textCache = textCache;
+        }
+
+        @Override
+        void bind(ChatRow row) {
+            MessageItem message = row.message;
+            bindText(message);
+            long nanos = message.getTimestampNanos();
+            if (message.isFailed()) {
+                timeTextview.setText(R.string.message_not_sent);
+            } else {
+                timeTextview.setText(nanos == 0 ? "" : TimeFormatter.getInstance().formatTimeOfDay(nanos / 1_000_000_000L));
+            }
+            // Dim messages the server has not acknowledged yet
+            bubble.setAlpha(message.isPending() ? PENDING_ALPHA : 1f);
+        }
+
+        /**
+         * Lets a failed message be tapped to send it again; other bubbles are not clickable.
+         */
+        void bindRetry(MessageItem message, RetryListener retryListener) {
+            if (message.isFailed() && retryListener != null) {
+                bubble.setOnClickListener(v -> retryListener.onRetry(message));
+            } else {
+                bubble.setOnClickListener(null);
+                bubble.setClickable(false);
+            }
+        }
+
+        /**
+         * Attaches the measured text if it is ready. Otherwise the text is measured on the
+         * compute executor and only awaited when the bubble is measured, which for rows bound
+         * ahead of scrolling happens before they become visible. A future left by the previous
+         * bind is dropped first so it cannot replace the new text when it completes.
+         */
+        private void bindText(MessageItem message) {
+            messageTextview.setTextFuture(null);
+            if (textCache == null) {
+                messageTextview.setText(message.getMessage());
+                return;
+            }
+            PrecomputedTextCompat precomputed = textCache.getIfReady(message.getMessageId(), message.getMessage());
+            if (precomputed != null) {
+                TextViewCompat.setPrecomputedText(messageTextview, precomputed);
+            } else {
+                messageTextview.setTextFuture(textCache.get(message.getMessageId(), message.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * ViewHolder class for the date shown above the messages of a day.
+     */
+    static class DateSeparatorViewHolder extends RowViewHolder {
+        final TextView dateTextview;
+
+        DateSeparatorViewHolder(@NonNull View itemView) {
+            super(itemView);
+            dateTextview = itemView.findViewById(R.id.chat_date_textview);
+        }
+
+        @Override
+        void bind(ChatRow row) {
+            dateTextview.setText(row.dayLabel);
         }
     }
 }
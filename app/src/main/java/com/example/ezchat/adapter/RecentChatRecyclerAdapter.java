@@ -2,7 +2,6 @@ package com.example.ezchat.adapter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,6 +9,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.ezchat.ChatActivity;
@@ -17,73 +18,118 @@ import com.example.ezchat.R;
 import com.example.ezchat.model.ChatroomModel;
 import com.example.ezchat.model.UserModel;
 import com.example.ezchat.utils.AndroidUtil;
+import com.example.ezchat.utils.AvatarUrlCache;
+import com.example.ezchat.utils.ContactSearchIndex;
 import com.example.ezchat.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.Task;
-import com.google.firebase.firestore.DocumentSnapshot;
+import com.example.ezchat.utils.UserCache;
+
+import java.util.Objects;
 /**
  * RecyclerView Adapter for displaying a list of recent chats in a chatroom.
- * Extends FirestoreRecyclerAdapter to handle Firestore-based data binding.
+ * Extends ListAdapter so new chatroom lists are diffed off the main thread and only changed rows rebind.
  */
-public class RecentChatRecyclerAdapter extends FirestoreRecyclerAdapter<ChatroomModel, RecentChatRecyclerAdapter.ChatroomModelViewHolder> {
+public class RecentChatRecyclerAdapter extends ListAdapter<ChatroomModel, RecentChatRecyclerAdapter.ChatroomModelViewHolder> {
+    static final DiffUtil.ItemCallback<ChatroomModel> DIFF_CALLBACK = new DiffUtil.ItemCallback<ChatroomModel>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ChatroomModel oldItem, @NonNull ChatroomModel newItem) {
+            return Objects.equals(oldItem.getChatroomId(), newItem.getChatroomId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ChatroomModel oldItem, @NonNull ChatroomModel newItem) {
+            return Objects.equals(oldItem.getLastMessage(), newItem.getLastMessage())
+                    && Objects.equals(oldItem.getLastMessageSenderId(), newItem.getLastMessageSenderId())
+                    && Objects.equals(oldItem.getLastMessageTimestamp(), newItem.getLastMessageTimestamp())
+                    && Objects.equals(oldItem.getParticipantNames(), newItem.getParticipantNames())
+                    && Objects.equals(oldItem.getParticipantPicUrls(), newItem.getParticipantPicUrls())
+                    && oldItem.isPending() == newItem.isPending();
+        }
+    };
+
     private final Context context;
     /**
-     * Constructor to initialize the adapter with Firestore options and context.
-     * @param options FirestoreRecyclerOptions for binding chatroom data.
+     * Constructor to initialize the adapter with a context.
      * @param context Application context for resource access and navigation.
      */
-    public RecentChatRecyclerAdapter(@NonNull FirestoreRecyclerOptions<ChatroomModel> options, Context context) {
-        super(options);
+    public RecentChatRecyclerAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return AndroidUtil.stableId(getItem(position).getChatroomId());
     }
     /**
      * Binds the data of a single chatroom to the corresponding ViewHolder.
+     * The other user's name and picture come from the chatroom summary, so binding needs no I/O;
+     * chatrooms created before summaries existed fall back to fetching the other user.
      * @param holder   ViewHolder for the chatroom.
      * @param position Position of the chatroom in the list.
-     * @param model    ChatroomModel containing the chatroom data.
      */
     @Override
-    protected void onBindViewHolder(@NonNull ChatroomModelViewHolder holder, int position, @NonNull ChatroomModel model) {
-        // Fetch other user information from the chatroom user IDs.
-        FirebaseUtil.getOtherUserFromChatroom(model.getUserIds())
-                .get().addOnCompleteListener(task -> {
+    public void onBindViewHolder(@NonNull ChatroomModelViewHolder holder, int position) {
+        ChatroomModel model = getItem(position);
+        String otherUserId = FirebaseUtil.getOtherUserId(model.getUserIds());
+        if (model.getParticipantNames() != null && model.getParticipantNames().containsKey(otherUserId)) {
+            UserModel otherUserModel = new UserModel();
+            otherUserModel.setUserId(otherUserId);
+            otherUserModel.setUsername(model.getParticipantNames().get(otherUserId));
+            if (model.getParticipantPicUrls() != null) {
+                otherUserModel.setProfilePicUrl(model.getParticipantPicUrls().get(otherUserId));
+            }
+            bindChatroom(holder, model, otherUserModel);
+            return;
+        }
+        // Fetch other user information through the shared profile cache.
+        UserCache.getInstance().get(otherUserId)
+                .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
-                        boolean lastMessageSentByMe = model.getLastMessageSenderId().equals(FirebaseUtil.currentUserId());
-
-                        // Retrieve the other user's details.
-                        UserModel otherUserModel = task.getResult().toObject(UserModel.class);
+                        UserModel otherUserModel = task.getResult();
+                        if (otherUserModel != null) {
+                            bindChatroom(holder, model, otherUserModel);
+                        }
+                    }
+                });
+    }
+    /**
+     * Fills the row with the other user's details and the chatroom's last message.
+     * @param holder         ViewHolder for the chatroom.
+     * @param model          ChatroomModel containing the chatroom data.
+     * @param otherUserModel The other participant of the chatroom.
+     */
+    private void bindChatroom(ChatroomModelViewHolder holder, ChatroomModel model, UserModel otherUserModel) {
+        // Make the contact searchable on-device.
+        ContactSearchIndex.getInstance().addContact(otherUserModel);
+        boolean lastMessageSentByMe = FirebaseUtil.currentUserId().equals(model.getLastMessageSenderId());
 
-                        // Fetch and display the other user's profile picture.
-                        FirebaseUtil.getOtherProfilePicStorageRef(otherUserModel.getUserId()).getDownloadUrl()
-                                .addOnCompleteListener(t -> {
-                                    if (t.isSuccessful()) {
-                                        Uri uri = t.getResult();
-                                        AndroidUtil.setProfilePic(context, uri, holder.profilePic);
-                                    }
-                                });
+        // Display the other user's profile picture, resolving it through the avatar cache if the summary has none.
+        AvatarUrlCache.getInstance(context)
+                .loadInto(otherUserModel.getUserId(), otherUserModel.getProfilePicUrl(), holder.profilePic);
 
-                        // Set the other user's username and last message text.
-                        holder.usernameText.setText(otherUserModel.getUsername());
-                        if (lastMessageSentByMe) {
-                            holder.lastMessageText.setText("You : " + model.getLastMessage());
-                        } else {
-                            holder.lastMessageText.setText(model.getLastMessage());
-                        }
+        // Set the other user's username and last message text.
+        holder.usernameText.setText(otherUserModel.getUsername());
+        if (lastMessageSentByMe) {
+            holder.lastMessageText.setText("You : " + model.getLastMessage());
+        } else {
+            holder.lastMessageText.setText(model.getLastMessage());
+        }
 
-                        // Format and display the timestamp of the last message.
-                        holder.lastMessageTime.setText(FirebaseUtil.timestampToString(model.getLastMessageTimestamp()));
+        // Format and display the timestamp of the last message.
+        holder.lastMessageTime.setText(FirebaseUtil.timestampToString(model.getLastMessageTimestamp()));
+        // Dim the last message while the server has not acknowledged it
+        float alpha = model.isPending() ? ChatRecyclerAdapter.PENDING_ALPHA : 1f;
+        holder.lastMessageText.setAlpha(alpha);
+        holder.lastMessageTime.setAlpha(alpha);
 
-                        // Set a click listener to navigate to the chat activity.
-                        holder.itemView.setOnClickListener(v -> {
-                            Intent intent = new Intent(context, ChatActivity.class);
-                            AndroidUtil.passUserModelAsIntent(intent, otherUserModel);
-                            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                            context.startActivity(intent);
-                        });
-                    }
-                });
+        // Set a click listener to navigate to the chat activity.
+        holder.itemView.setOnClickListener(v -> {
+            Intent intent = new Intent(context, ChatActivity.class);
+            AndroidUtil.passUserModelAsIntent(intent, otherUserModel);
+            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            context.startActivity(intent);
+        });
     }
     /**
      * Creates a new ViewHolder for displaying a chatroom item.
@@ -2,7 +2,6 @@ package com.example.ezchat.adapter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,37 +15,52 @@ import com.example.ezchat.ChatActivity;
 import com.example.ezchat.R;
 import com.example.ezchat.model.UserModel;
 import com.example.ezchat.utils.AndroidUtil;
+import com.example.ezchat.utils.AvatarUrlCache;
 import com.example.ezchat.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A RecyclerView adapter for displaying a list of users retrieved from Firestore.
  * This adapter binds data from a {@link UserModel} object to the corresponding views
  * in the RecyclerView row layout.
  */
-public class SearchUserRecyclerAdapter extends FirestoreRecyclerAdapter<UserModel, SearchUserRecyclerAdapter.UserModelViewHolder> {
+public class SearchUserRecyclerAdapter extends RecyclerView.Adapter<SearchUserRecyclerAdapter.UserModelViewHolder> {
 
     private final Context context;
+    private List<UserModel> users = new ArrayList<>();
 
     /**
-     * Constructor for initializing the adapter with Firestore options and a context.
-     * @param options FirestoreRecyclerOptions containing the query and the {@link UserModel} class.
+     * Constructor for initializing the adapter with a context.
      * @param context The context in which the adapter is used, typically an Activity or Fragment.
      */
-    public SearchUserRecyclerAdapter(@NonNull FirestoreRecyclerOptions<UserModel> options, Context context) {
-        super(options);
+    public SearchUserRecyclerAdapter(Context context) {
         this.context = context;
     }
 
+    /**
+     * Replaces the search results shown by the adapter.
+     * @param users The users matching the current search term.
+     */
+    public void setUsers(List<UserModel> users) {
+        this.users = users;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getItemCount() {
+        return users.size();
+    }
+
     /**
      * Binds data from a {@link UserModel} to the provided {@link UserModelViewHolder}.
      * @param holder   The ViewHolder for the current item.
      * @param position The position of the current item in the list.
-     * @param model    The {@link UserModel} object containing user data.
      */
     @Override
-    protected void onBindViewHolder(@NonNull UserModelViewHolder holder, int position, @NonNull UserModel model) {
+    public void onBindViewHolder(@NonNull UserModelViewHolder holder, int position) {
+        UserModel model = users.get(position);
         // Set the username and phone number.
         holder.usernameText.setText(model.getUsername());
         holder.phoneText.setText(model.getPhone());
@@ -56,14 +70,8 @@ public class SearchUserRecyclerAdapter extends FirestoreRecyclerAdapter<UserMode
             holder.usernameText.setText(model.getUsername() + " (Me)");
         }
 
-        // Fetch and set the user's profile picture using Firebase Storage.
-        FirebaseUtil.getOtherProfilePicStorageRef(model.getUserId()).getDownloadUrl()
-                .addOnCompleteListener(t -> {
-                    if (t.isSuccessful()) {
-                        Uri uri = t.getResult();
-                        AndroidUtil.setProfilePic(context, uri, holder.profilePic);
-                    }
-                });
+        // Set the user's profile picture, only resolving its URL from Firebase Storage when not cached.
+        AvatarUrlCache.getInstance(context).loadInto(model.getUserId(), model.getProfilePicUrl(), holder.profilePic);
         // Set an onClick listener to navigate to the chat activity with the selected user's details.
         holder.itemView.setOnClickListener(v -> {
             Intent intent = new Intent(context, ChatActivity.class);
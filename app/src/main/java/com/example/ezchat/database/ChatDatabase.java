@@ -0,0 +1,50 @@
+package com.example.ezchat.database;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+/**
+ * On-device database holding chat messages so chatrooms can render from disk before Firestore answers.
+ */
+@Database(entities = {MessageEntity.class, ChatroomSyncEntity.class, PendingMessageEntity.class},
+        version = 1, exportSchema = false)
+public abstract class ChatDatabase extends RoomDatabase {
+    private static final String DATABASE_NAME = "ezchat.db";
+    private static volatile ChatDatabase instance;
+
+    public abstract MessageDao messageDao();
+
+    public abstract PendingMessageDao pendingMessageDao();
+
+    /**
+     * Returns the process-wide database, opening it on first use.
+     * @param context Any context; the application context is retained.
+     * @return The shared database.
+     */
+    public static ChatDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ChatDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(), ChatDatabase.class, DATABASE_NAME)
+                            .fallbackToDestructiveMigration()
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Creates a database that lives only in memory, for tests.
+     * @param context Any context.
+     * @return A new, empty database.
+     */
+    public static ChatDatabase createInMemory(Context context) {
+        return Room.inMemoryDatabaseBuilder(context, ChatDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.ezchat.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Records how far the local message store of a chatroom is in sync with Firestore.
+ */
+@Entity(tableName = "chatroom_sync")
+public class ChatroomSyncEntity {
+    @NonNull
+    @PrimaryKey
+    public String chatroomId = "";
+    // Timestamp of the newest message stored, in nanoseconds since the epoch.
+    public long lastSyncedTimestamp;
+
+    public ChatroomSyncEntity() {
+    }
+
+    public ChatroomSyncEntity(@NonNull String chatroomId, long lastSyncedTimestamp) {
+        this.chatroomId = chatroomId;
+        this.lastSyncedTimestamp = lastSyncedTimestamp;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ezchat.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+/**
+ * Data access object for the local message store. All methods block and must be called
+ * from a background thread such as AppExecutors.io().
+ */
+@Dao
+public abstract class MessageDao {
+
+    /**
+     * Inserts messages, replacing any stored copy with the same id.
+     * @param messages The messages to store.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void upsert(List<MessageEntity> messages);
+
+    /**
+     * Returns the newest messages of a chatroom.
+     * @param chatroomId The chatroom to read.
+     * @param limit      Maximum number of messages to return.
+     * @return Messages ordered from newest to oldest.
+     */
+    @Query("SELECT * FROM messages WHERE chatroomId = :chatroomId "
+            + "ORDER BY timestamp DESC, messageId DESC LIMIT :limit")
+    public abstract List<MessageEntity> getNewest(String chatroomId, int limit);
+
+    /**
+     * Returns the messages of a chatroom that come before the given message.
+     * Messages with the same timestamp are ordered by ID, like in Firestore queries.
+     * @param chatroomId The chatroom to read.
+     * @param before     Timestamp of the cursor message, in nanoseconds since the epoch.
+     * @param beforeId   ID of the cursor message.
+     * @param limit      Maximum number of messages to return.
+     * @return Messages ordered from newest to oldest.
+     */
+    @Query("SELECT * FROM messages WHERE chatroomId = :chatroomId "
+            + "AND (timestamp < :before OR (timestamp = :before AND messageId < :beforeId)) "
+            + "ORDER BY timestamp DESC, messageId DESC LIMIT :limit")
+    public abstract List<MessageEntity> getOlderThan(String chatroomId, long before, String beforeId, int limit);
+
+    /**
+     * Removes messages of a chatroom that were deleted on the server.
+     * @param chatroomId The chatroom the messages belong to.
+     * @param messageIds IDs of the messages to remove.
+     */
+    @Query("DELETE FROM messages WHERE chatroomId = :chatroomId AND messageId IN (:messageIds)")
+    public abstract void delete(String chatroomId, List<String> messageIds);
+
+    /**
+     * Returns the timestamp of the newest message synced from Firestore.
+     * @param chatroomId The chatroom to look up.
+     * @return The timestamp in nanoseconds, or null if the chatroom was never synced.
+     */
+    @Query("SELECT lastSyncedTimestamp FROM chatroom_sync WHERE chatroomId = :chatroomId")
+    public abstract Long getLastSynced(String chatroomId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract void setSyncState(ChatroomSyncEntity syncState);
+
+    /**
+     * Stores messages received from Firestore and advances the chatroom's sync marker
+     * if they are newer than anything synced so far.
+     * @param chatroomId The chatroom the messages belong to.
+     * @param messages   The messages to store.
+     */
+    @Transaction
+    public void insertSynced(String chatroomId, List<MessageEntity> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        upsert(messages);
+        Long lastSynced = getLastSynced(chatroomId);
+        long newest = lastSynced != null ? lastSynced : Long.MIN_VALUE;
+        for (MessageEntity message : messages) {
+            newest = Math.max(newest, message.timestamp);
+        }
+        if (lastSynced == null || newest > lastSynced) {
+            setSyncState(new ChatroomSyncEntity(chatroomId, newest));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.ezchat.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+import com.example.ezchat.model.ChatMessageModel;
+import com.google.firebase.Timestamp;
+
+/**
+ * Row of the local message store. Messages are keyed by their chatroom and Firestore document id
+ * and indexed by timestamp so pages can be read newest first.
+ */
+@Entity(tableName = "messages",
+        primaryKeys = {"chatroomId", "messageId"},
+        indices = {@Index({"chatroomId", "timestamp"})})
+public class MessageEntity {
+    @NonNull
+    public String chatroomId = "";
+    @NonNull
+    public String messageId = "";
+    public String senderId;
+    public String message;
+    // Nanoseconds since the epoch, so Firestore cursors built from it match exactly.
+    public long timestamp;
+
+    /**
+     * Creates a row from a message received from Firestore.
+     * @param chatroomId The chatroom the message belongs to.
+     * @param model      The message, which must have its id and timestamp set.
+     * @return The row to store.
+     */
+    public static MessageEntity fromModel(String chatroomId, ChatMessageModel model) {
+        MessageEntity entity = new MessageEntity();
+        entity.chatroomId = chatroomId;
+        entity.messageId = model.getMessageId();
+        entity.senderId = model.getSenderId();
+        entity.message = model.getMessage();
+        entity.timestamp = toNanos(model.getTimestamp());
+        return entity;
+    }
+
+    /**
+     * Converts the row back into the model used by the UI.
+     * @return The stored message.
+     */
+    public ChatMessageModel toModel() {
+        ChatMessageModel model = new ChatMessageModel(message, senderId, fromNanos(timestamp));
+        model.setMessageId(messageId);
+        return model;
+    }
+
+    /**
+     * Converts a Firestore timestamp to nanoseconds since the epoch.
+     * @param timestamp The timestamp to convert.
+     * @return The timestamp in nanoseconds.
+     */
+    public static long toNanos(Timestamp timestamp) {
+        return timestamp.getSeconds() * 1_000_000_000L + timestamp.getNanoseconds();
+    }
+
+    /**
+     * Converts nanoseconds since the epoch back to a Firestore timestamp.
+     * @param nanos The timestamp in nanoseconds.
+     * @return The Firestore timestamp.
+     */
+    public static Timestamp fromNanos(long nanos) {
+        return new Timestamp(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L));
+    }
+}
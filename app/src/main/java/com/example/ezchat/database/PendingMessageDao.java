@@ -0,0 +1,58 @@
+package com.example.ezchat.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data access object for the outbound message queue. All methods block and must be called
+ * from a background thread such as AppExecutors.io().
+ */
+@Dao
+public interface PendingMessageDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(PendingMessageEntity message);
+
+    @Query("DELETE FROM pending_messages WHERE messageId IN (:messageIds)")
+    void delete(List<String> messageIds);
+
+    @Query("UPDATE pending_messages SET attempts = attempts + 1 WHERE messageId IN (:messageIds)")
+    void incrementAttempts(List<String> messageIds);
+
+    @Query("UPDATE pending_messages SET attempts = attempts + 1, failed = 1 WHERE messageId IN (:messageIds)")
+    void markFailed(List<String> messageIds);
+
+    /**
+     * Queues a failed message for sending again.
+     * @param messageId The message to retry.
+     */
+    @Query("UPDATE pending_messages SET attempts = 0, failed = 0 WHERE messageId = :messageId")
+    void retry(String messageId);
+
+    /**
+     * Returns the unsent messages of a chatroom.
+     * @param chatroomId The chatroom to read.
+     * @return Messages in the order they were queued.
+     */
+    @Query("SELECT * FROM pending_messages WHERE chatroomId = :chatroomId ORDER BY createdAt")
+    List<PendingMessageEntity> getForChatroom(String chatroomId);
+
+    /**
+     * Returns the unsent messages of a chatroom that have not failed.
+     * @param chatroomId The chatroom to read.
+     * @return Messages in the order they were queued.
+     */
+    @Query("SELECT * FROM pending_messages WHERE chatroomId = :chatroomId AND failed = 0 ORDER BY createdAt")
+    List<PendingMessageEntity> getSendable(String chatroomId);
+
+    /**
+     * Returns every unsent message that has not failed.
+     * @return Messages in the order they were queued.
+     */
+    @Query("SELECT * FROM pending_messages WHERE failed = 0 ORDER BY createdAt")
+    List<PendingMessageEntity> getAll();
+}
@@ -0,0 +1,55 @@
+package com.example.ezchat.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.example.ezchat.model.ChatMessageModel;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Message written by the current user that the server has not acknowledged yet.
+ * The message ID is generated on the device and becomes the Firestore document ID,
+ * so sending the same row again never creates a duplicate.
+ * A message the server rejected, or that failed too often, is kept as failed until the user
+ * retries it.
+ */
+@Entity(tableName = "pending_messages")
+public class PendingMessageEntity {
+    @NonNull
+    @PrimaryKey
+    public String messageId = "";
+    public String chatroomId;
+    // Participant IDs joined with commas, needed to create the chatroom if it does not exist yet.
+    public String userIds;
+    public String senderId;
+    public String message;
+    // Time the message was queued, in nanoseconds since the epoch.
+    public long createdAt;
+    // Failed commits that included this message.
+    public int attempts;
+    // Whether sending stopped until the user retries the message.
+    public boolean failed;
+
+    /**
+     * Returns the chatroom's participant IDs.
+     * @return The participant IDs.
+     */
+    public List<String> getUserIdList() {
+        return Arrays.asList(userIds.split(","));
+    }
+
+    /**
+     * Converts the row into a message shown as pending in the chat.
+     * @return The pending message.
+     */
+    public ChatMessageModel toModel() {
+        ChatMessageModel model = new ChatMessageModel(message, senderId, MessageEntity.fromNanos(createdAt));
+        model.setMessageId(messageId);
+        model.setPending(true);
+        model.setFailed(failed);
+        return model;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.ezchat.mapper;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a Firestore model for which the mapper processor generates a reflection-free
+ * {@link ModelMapper}, named after the model with a "_FirestoreMapper" suffix.
+ * The model needs a public no-arg constructor, and its properties are its public getter and
+ * setter pairs, named and excluded the same way Firestore's own mapper does it.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateMapper {
+}
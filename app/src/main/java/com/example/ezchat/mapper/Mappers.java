@@ -0,0 +1,147 @@
+package com.example.ezchat.mapper;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry point for converting Firestore documents to models and back.
+ * Models annotated with {@link GenerateMapper} use their generated mapper, which reads and
+ * writes fields directly. Other models, and documents whose fields do not have the types the
+ * generated mapper expects, are read with DocumentSnapshot.toObject() as before.
+ */
+public class Mappers {
+    static final String GENERATED_SUFFIX = "_FirestoreMapper";
+
+    // Stands in for types without a generated mapper, as the map cannot hold null
+    private static final Object NO_MAPPER = new Object();
+
+    private static final Map<Class<?>, Object> MAPPERS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the generated mapper for a model type, looking it up once.
+     * @param type The model type.
+     * @return The generated mapper, or null if none was generated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ModelMapper<T> get(Class<T> type) {
+        Object mapper = MAPPERS.get(type);
+        if (mapper == null) {
+            mapper = create(type);
+            MAPPERS.put(type, mapper);
+        }
+        return mapper != NO_MAPPER ? (ModelMapper<T>) mapper : null;
+    }
+
+    /**
+     * Converts a document to a model, like DocumentSnapshot.toObject().
+     * @param document The document.
+     * @param type     The model type.
+     * @return The model, or null if the document does not exist.
+     */
+    public static <T> T toObject(DocumentSnapshot document, Class<T> type) {
+        return toObject(document, type, DocumentSnapshot.ServerTimestampBehavior.DEFAULT);
+    }
+
+    /**
+     * Converts a document to a model, like DocumentSnapshot.toObject().
+     * @param document                The document.
+     * @param type                    The model type.
+     * @param serverTimestampBehavior How to read server timestamps that are not written yet.
+     * @return The model, or null if the document does not exist.
+     */
+    public static <T> T toObject(DocumentSnapshot document, Class<T> type,
+                                 DocumentSnapshot.ServerTimestampBehavior serverTimestampBehavior) {
+        ModelMapper<T> mapper = get(type);
+        if (mapper != null) {
+            Map<String, Object> data = document.getData(serverTimestampBehavior);
+            if (data == null) {
+                return null;
+            }
+            try {
+                return mapper.fromMap(data);
+            } catch (ClassCastException e) {
+                // Firestore's own mapping converts what it can and reports what it cannot
+            }
+        }
+        return document.toObject(type, serverTimestampBehavior);
+    }
+
+    /**
+     * Converts document fields to a model with its generated mapper.
+     * @param data The document fields.
+     * @param type The model type.
+     * @return The model.
+     * @throws ClassCastException       If a field does not have the type the model expects.
+     * @throws IllegalArgumentException If the type has no generated mapper.
+     */
+    public static <T> T fromMap(Map<String, Object> data, Class<T> type) {
+        return require(type).fromMap(data);
+    }
+
+    /**
+     * Converts a model to document fields with its generated mapper.
+     * @param model The model.
+     * @return The document fields.
+     * @throws IllegalArgumentException If the model's type has no generated mapper.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Map<String, Object> toMap(T model) {
+        return require((Class<T>) model.getClass()).toMap(model);
+    }
+
+    /**
+     * Copies a list field of a document, used by generated mappers.
+     * @param value The field value.
+     * @return A list of the field's strings, or null if the field is null.
+     */
+    public static List<String> toStringList(Object value) {
+        if (value == null) {
+            return null;
+        }
+        List<?> values = (List<?>) value;
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object element : values) {
+            strings.add((String) element);
+        }
+        return strings;
+    }
+
+    /**
+     * Copies a map field of a document, used by generated mappers.
+     * @param value The field value.
+     * @return A map of the field's strings, or null if the field is null.
+     */
+    public static Map<String, String> toStringMap(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Map<?, ?> values = (Map<?, ?>) value;
+        Map<String, String> strings = new HashMap<>(values.size() * 4 / 3 + 1);
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            strings.put((String) entry.getKey(), (String) entry.getValue());
+        }
+        return strings;
+    }
+
+    private static <T> ModelMapper<T> require(Class<T> type) {
+        ModelMapper<T> mapper = get(type);
+        if (mapper == null) {
+            throw new IllegalArgumentException(type.getName() + " is not annotated with @GenerateMapper");
+        }
+        return mapper;
+    }
+
+    private static Object create(Class<?> type) {
+        try {
+            Class<?> generated = Class.forName(type.getName() + GENERATED_SUFFIX, true, type.getClassLoader());
+            return (ModelMapper<?>) generated.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return NO_MAPPER;
+        }
+    }
+}
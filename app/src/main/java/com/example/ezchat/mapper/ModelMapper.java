@@ -0,0 +1,23 @@
+package com.example.ezchat.mapper;
+
+import java.util.Map;
+
+/**
+ * Converts a model to and from the field map of a Firestore document.
+ * @param <T> The model type.
+ */
+public interface ModelMapper<T> {
+    /**
+     * Creates a model from document fields. Fields the model does not have are ignored.
+     * @param data The document fields.
+     * @return The model.
+     */
+    T fromMap(Map<String, Object> data);
+
+    /**
+     * Converts a model to document fields that can be written with set() or update().
+     * @param model The model.
+     * @return The document fields.
+     */
+    Map<String, Object> toMap(T model);
+}
@@ -1,6 +1,9 @@
 package com.example.ezchat.model;
 
+import com.example.ezchat.mapper.GenerateMapper;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.ServerTimestamp;
 
 
 /**
@@ -9,10 +12,15 @@ import com.google.firebase.Timestamp;
  *Used to deserialize and serialize data to and from Firebase Firestore.
  */
 
+@GenerateMapper
 public class ChatMessageModel {
+    private String messageId;
     private String message;
     private String senderId;
-    private Timestamp timestamp;
+    @ServerTimestamp
+    private Timestamp timestamp; // Filled in by the server when written as null
+    private boolean pending;     // True until the server acknowledges the message
+    private boolean failed;      // True if sending stopped until the user retries
 
     // No-arg constructor is needed for Firebase deserialization
     public ChatMessageModel() {}
@@ -30,6 +38,26 @@ public class ChatMessageModel {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Retrieves the message ID. This is the Firestore document ID and is not stored as a field.
+     * @return The ID of the message document.
+     */
+
+    @Exclude
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * Sets the message ID.
+     * @param messageId The ID of the message document.
+     */
+
+    @Exclude
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
     /** Retrieves the message content.
      * @return The chat message as a String.
      */
@@ -87,4 +115,50 @@ public class ChatMessageModel {
     public void setTimestamp(Timestamp timestamp) {
         this.timestamp = timestamp;
     }
+
+
+    /**
+     * Checks whether the message is still waiting to be acknowledged by the server.
+     * This is local state and is not stored as a field.
+     * @return True if the message has not been acknowledged yet.
+     */
+
+    @Exclude
+    public boolean isPending() {
+        return pending;
+    }
+
+
+    /**
+     * Marks the message as waiting for, or acknowledged by, the server.
+     * @param pending Whether the message has not been acknowledged yet.
+     */
+
+    @Exclude
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+
+
+    /**
+     * Checks whether sending the message stopped until the user retries it.
+     * This is local state and is not stored as a field.
+     * @return True if the message could not be sent.
+     */
+
+    @Exclude
+    public boolean isFailed() {
+        return failed;
+    }
+
+
+    /**
+     * Marks the message as failed to send, or as queued again.
+     * @param failed Whether the message could not be sent.
+     */
+
+    @Exclude
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
 }
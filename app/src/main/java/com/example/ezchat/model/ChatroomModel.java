@@ -1,15 +1,27 @@
 package com.example.ezchat.model;
 
+import com.example.ezchat.mapper.GenerateMapper;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+@GenerateMapper
 public class ChatroomModel {
     String chatroomId;
     List<String> userIds;
     Timestamp lastMessageTimestamp;
     String lastMessageSenderId;
     String lastMessage;
+    // Participant usernames and profile picture URLs keyed by user ID, so the chat list can bind without lookups.
+    Map<String, String> participantNames = new HashMap<>();
+    Map<String, String> participantPicUrls = new HashMap<>();
+    boolean pending; // True while this device has changes to the chatroom the server has not acknowledged
 
+    // No-arg constructor is needed for Firebase deserialization
+    public ChatroomModel() {
+    }
 
     public ChatroomModel(String chatroomId, List<String> userIds, Timestamp lastMessageTimestamp, String lastMessageSenderId) {
         this.chatroomId = chatroomId;
@@ -58,6 +70,30 @@ public class ChatroomModel {
         this.lastMessage = lastMessage;
 
     }
-}
 
+    public Map<String, String> getParticipantNames() {
+        return participantNames;
+    }
+
+    public void setParticipantNames(Map<String, String> participantNames) {
+        this.participantNames = participantNames;
+    }
+
+    public Map<String, String> getParticipantPicUrls() {
+        return participantPicUrls;
+    }
 
+    public void setParticipantPicUrls(Map<String, String> participantPicUrls) {
+        this.participantPicUrls = participantPicUrls;
+    }
+
+    @Exclude
+    public boolean isPending() {
+        return pending;
+    }
+
+    @Exclude
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+}
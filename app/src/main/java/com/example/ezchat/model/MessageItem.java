@@ -0,0 +1,86 @@
+package com.example.ezchat.model;
+
+/**
+ * Compact, immutable form of a chat message held by the message list.
+ * The sender is stored as its index in the chatroom's {@link com.example.ezchat.utils.ParticipantInterner}
+ * rather than as its own string, the timestamp as a primitive, and whether the current user
+ * sent the message is decided once when the item is created, so binding a row only branches.
+ */
+public final class MessageItem {
+    private final String messageId;
+    private final long stableId;
+    private final String message;
+    private final int senderIndex;
+    private final long timestampNanos;
+    private final boolean mine;
+    private final boolean pending;
+    private final boolean failed;
+
+    /**
+     * Creates a message item.
+     * @param messageId      The Firestore document ID of the message.
+     * @param stableId       The RecyclerView item ID derived from the message ID.
+     * @param message        The message content.
+     * @param senderIndex    The sender's interned index.
+     * @param timestampNanos The message time in nanoseconds since the epoch.
+     * @param mine           Whether the current user sent the message.
+     * @param pending        Whether the server has not acknowledged the message yet.
+     * @param failed         Whether sending the message stopped until the user retries it.
+     */
+    public MessageItem(String messageId, long stableId, String message, int senderIndex,
+                       long timestampNanos, boolean mine, boolean pending, boolean failed) {
+        this.messageId = messageId;
+        this.stableId = stableId;
+        this.message = message;
+        this.senderIndex = senderIndex;
+        this.timestampNanos = timestampNanos;
+        this.mine = mine;
+        this.pending = pending;
+        this.failed = failed;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public long getStableId() {
+        return stableId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getSenderIndex() {
+        return senderIndex;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public boolean isMine() {
+        return mine;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Checks whether another item for the same message would render identically.
+     * @param other The other item.
+     * @return True if nothing visible differs.
+     */
+    public boolean hasSameContents(MessageItem other) {
+        return senderIndex == other.senderIndex
+                && timestampNanos == other.timestampNanos
+                && pending == other.pending
+                && failed == other.failed
+                && message.equals(other.message);
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.ezchat.model;
 
+import com.example.ezchat.mapper.GenerateMapper;
 import com.google.firebase.Timestamp;
+
+import java.util.Locale;
 /**
  * Represents a user in the application, containing profile information,
  * contact details, and metadata such as creation timestamp and FCM token.
  */
+@GenerateMapper
 public class UserModel {
     private String phone;              // User's phone number
     private String username;           // User's username
+    private String searchKey;          // Normalized username used for prefix search
     private Timestamp createdTimestamp; // Timestamp indicating when the user account was created
     private String userId;             // Unique identifier for the user
     private String fcmToken;           // Firebase Cloud Messaging token for notifications
@@ -28,9 +33,23 @@ public class UserModel {
     public UserModel(String phone, String username, Timestamp createdTimestamp, String userId) {
         this.phone = phone;
         this.username = username;
+        this.searchKey = toSearchKey(username);
         this.createdTimestamp = createdTimestamp;
         this.userId = userId;
     }
+    /**
+     * Copy constructor, used so profiles held by shared caches are never changed by their callers.
+     * @param other The user model to copy.
+     */
+    public UserModel(UserModel other) {
+        this.phone = other.phone;
+        this.username = other.username;
+        this.searchKey = other.searchKey;
+        this.createdTimestamp = other.createdTimestamp;
+        this.userId = other.userId;
+        this.fcmToken = other.fcmToken;
+        this.profilePicUrl = other.profilePicUrl;
+    }
     /**
      * Gets the user's phone number.
      * @return The phone number.
@@ -58,6 +77,29 @@ public class UserModel {
      */
     public void setUsername(String username) {
         this.username = username;
+        this.searchKey = toSearchKey(username);
+    }
+    /**
+     * Gets the normalized username used for prefix search.
+     * @return The search key.
+     */
+    public String getSearchKey() {
+        return searchKey;
+    }
+    /**
+     * Sets the normalized username used for prefix search.
+     * @param searchKey The search key to set.
+     */
+    public void setSearchKey(String searchKey) {
+        this.searchKey = searchKey;
+    }
+    /**
+     * Normalizes a username or search term so searches are case-insensitive.
+     * @param text The username or search term.
+     * @return The trimmed, lowercase search key, or null if text is null.
+     */
+    public static String toSearchKey(String text) {
+        return text == null ? null : text.trim().toLowerCase(Locale.ROOT);
     }
     /**
      * Gets the timestamp indicating when the user account was created.
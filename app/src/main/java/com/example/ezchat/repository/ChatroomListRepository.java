@@ -0,0 +1,187 @@
+package com.example.ezchat.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.ezchat.mapper.Mappers;
+import com.example.ezchat.model.ChatroomModel;
+import com.example.ezchat.utils.AppExecutors;
+import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.PerfTracer;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * App-scoped source of the current user's chatrooms, newest activity first.
+ * A single snapshot listener is shared by every observer. It stays attached while any observer
+ * is active and for a grace period after the last one goes away, so switching tabs or briefly
+ * leaving the app does not download the chatroom list again. A newly attached observer
+ * receives the last list right away. Snapshots are mapped on the compute executor and
+ * conflated, so a burst of chatroom updates reaches the list as at most two values.
+ * Each chatroom is marked while it has writes the server has not acknowledged, and the sync
+ * status of the whole list is published separately.
+ */
+public class ChatroomListRepository extends LiveData<List<ChatroomModel>> {
+    // How long the listener stays attached after the last observer becomes inactive
+    private static final long DETACH_GRACE_MILLIS = 60 * 1000;
+
+    private static final ChatroomListRepository INSTANCE = new ChatroomListRepository();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable detachRunnable = this::detach;
+    private final ConflatingMapper<QuerySnapshot, List<ChatroomModel>> mapper =
+            new ConflatingMapper<>(AppExecutors.compute(), ChatroomListRepository::toChatrooms, this::setValue);
+    private final MutableLiveData<SyncStatus> syncStatus = new MutableLiveData<>();
+    private final MutableLiveData<Exception> error = new MutableLiveData<>();
+    private final SyncStatusTracker syncStatusTracker =
+            new SyncStatusTracker(() -> syncStatus.setValue(SyncStatus.OFFLINE));
+    private ListenerRegistration registration;
+    // The user the current listener and list belong to
+    private String userId;
+
+    private ChatroomListRepository() {
+    }
+
+    /**
+     * Returns the shared chatroom list.
+     * @return The process-wide ChatroomListRepository.
+     */
+    public static ChatroomListRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Attaches the listener before any screen observes the list, so the first snapshot, which
+     * Firestore serves from its local cache, is usually ready by the time the list is drawn.
+     * The listener is detached again after the grace period unless an observer shows up.
+     * Must be called on the main thread.
+     */
+    public void prewarm() {
+        if (hasActiveObservers()) {
+            return;
+        }
+        ensureAttached();
+        handler.removeCallbacks(detachRunnable);
+        handler.postDelayed(detachRunnable, DETACH_GRACE_MILLIS);
+    }
+
+    /**
+     * Returns whether the chatroom list is served from the local cache or has unsent changes.
+     * @return Live data of the sync status, null while no list is loaded.
+     */
+    public LiveData<SyncStatus> getSyncStatus() {
+        return syncStatus;
+    }
+
+    /**
+     * Returns why the chatroom list stopped updating. The chatrooms loaded before stay available,
+     * and the listener is attached again the next time the list becomes active.
+     * @return Live data of the listener's error, null while the list is updating.
+     */
+    public LiveData<Exception> getError() {
+        return error;
+    }
+
+    /**
+     * Cancels a pending detach and attaches the listener if it is not attached yet.
+     */
+    @Override
+    protected void onActive() {
+        handler.removeCallbacks(detachRunnable);
+        ensureAttached();
+    }
+
+    /**
+     * Detaches the listener once the grace period passes without an active observer.
+     */
+    @Override
+    protected void onInactive() {
+        handler.postDelayed(detachRunnable, DETACH_GRACE_MILLIS);
+    }
+
+    /**
+     * Detaches the listener and forgets the loaded chatrooms, for example on logout.
+     * Must be called on the main thread.
+     */
+    public void reset() {
+        handler.removeCallbacks(detachRunnable);
+        detach();
+        mapper.cancel();
+        userId = null;
+        setValue(null);
+        syncStatus.setValue(null);
+        error.setValue(null);
+    }
+
+    private void ensureAttached() {
+        String currentUserId = FirebaseUtil.currentUserId();
+        if (currentUserId == null) {
+            return;
+        }
+        if (!currentUserId.equals(userId)) {
+            // Another user signed in since the list was loaded
+            reset();
+            userId = currentUserId;
+        }
+        if (registration == null) {
+            attach();
+        }
+    }
+
+    private void attach() {
+        Query query = FirebaseUtil.allChatroomCollectionReference()
+                .whereArrayContains("userIds", userId)
+                .orderBy("lastMessageTimestamp", Query.Direction.DESCENDING);
+        PerfTracer.Span firstSnapshot = PerfTracer.beginAsync("firestore.firstSnapshot.chatrooms");
+        syncStatusTracker.start();
+        // Metadata changes are included so pending and offline states are cleared once synced
+        registration = query.addSnapshotListener(MetadataChanges.INCLUDE, (snapshot, e) -> {
+            firstSnapshot.end();
+            if (e != null) {
+                // Firestore removes the listener after an error; forget it so it is attached again
+                registration = null;
+                syncStatusTracker.stop();
+                error.setValue(e);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            if (error.getValue() != null) {
+                error.setValue(null);
+            }
+            syncStatus.setValue(syncStatusTracker.resolve(SyncStatus.of(snapshot.getMetadata())));
+            mapper.submit(snapshot);
+        });
+    }
+
+    private void detach() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        syncStatusTracker.stop();
+    }
+
+    private static List<ChatroomModel> toChatrooms(QuerySnapshot snapshot) {
+        List<ChatroomModel> chatrooms = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            ChatroomModel chatroom = Mappers.toObject(document, ChatroomModel.class);
+            if (chatroom != null) {
+                chatroom.setChatroomId(document.getId());
+                chatroom.setPending(document.getMetadata().hasPendingWrites());
+                chatrooms.add(chatroom);
+            }
+        }
+        return chatrooms;
+    }
+}
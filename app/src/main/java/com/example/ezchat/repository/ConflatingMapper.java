@@ -0,0 +1,117 @@
+package com.example.ezchat.repository;
+
+import android.util.Log;
+
+import com.example.ezchat.utils.AppExecutors;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Maps snapshots on a background executor and hands the results to the main thread.
+ * At most one snapshot is mapped at a time, and while it is, only the newest snapshot that
+ * arrives is kept; older ones are dropped. A burst of snapshots therefore costs at most two
+ * mappings and two UI updates, however long it is. Snapshots must describe the whole state,
+ * not changes to the previous one, since intermediate snapshots may be skipped. A snapshot
+ * that fails to map is reported instead of delivered, and the snapshots after it are still mapped.
+ *
+ * Must be used from the main thread.
+ * @param <S> The snapshot type.
+ * @param <T> The mapped type.
+ */
+public class ConflatingMapper<S, T> {
+    private static final String TAG = "ConflatingMapper";
+
+    private final Executor executor;
+    private final Executor mainExecutor;
+    private final Function<S, T> mapper;
+    private final Consumer<T> receiver;
+    private final Consumer<RuntimeException> errorReceiver;
+
+    private boolean mapping;
+    private S waiting;
+    // Incremented by cancel() so results of earlier snapshots are discarded
+    private int generation;
+
+    /**
+     * Creates a mapper.
+     * @param executor The executor mapping snapshots, usually {@link AppExecutors#compute()}.
+     * @param mapper   Turns a snapshot into its result; runs on the executor.
+     * @param receiver Receives each result on the main thread.
+     */
+    public ConflatingMapper(Executor executor, Function<S, T> mapper, Consumer<T> receiver) {
+        this(executor, mapper, receiver, e -> Log.w(TAG, "Failed to map snapshot", e));
+    }
+
+    /**
+     * Creates a mapper.
+     * @param executor      The executor mapping snapshots, usually {@link AppExecutors#compute()}.
+     * @param mapper        Turns a snapshot into its result; runs on the executor.
+     * @param receiver      Receives each result on the main thread.
+     * @param errorReceiver Receives, on the main thread, what the mapper threw instead of a result.
+     */
+    public ConflatingMapper(Executor executor, Function<S, T> mapper, Consumer<T> receiver,
+                            Consumer<RuntimeException> errorReceiver) {
+        this(executor, AppExecutors.main(), mapper, receiver, errorReceiver);
+    }
+
+    ConflatingMapper(Executor executor, Executor mainExecutor, Function<S, T> mapper, Consumer<T> receiver,
+                     Consumer<RuntimeException> errorReceiver) {
+        this.executor = executor;
+        this.mainExecutor = mainExecutor;
+        this.mapper = mapper;
+        this.receiver = receiver;
+        this.errorReceiver = errorReceiver;
+    }
+
+    /**
+     * Maps a snapshot, replacing any snapshot still waiting to be mapped.
+     * @param snapshot The newest snapshot.
+     */
+    public void submit(S snapshot) {
+        if (mapping) {
+            waiting = snapshot;
+            return;
+        }
+        mapping = true;
+        int submittedGeneration = generation;
+        executor.execute(() -> {
+            T result = null;
+            RuntimeException error = null;
+            try {
+                result = mapper.apply(snapshot);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            T mapped = result;
+            RuntimeException failure = error;
+            mainExecutor.execute(() -> deliver(submittedGeneration, mapped, failure));
+        });
+    }
+
+    /**
+     * Drops the waiting snapshot and the result of the one being mapped, for example when the
+     * listener producing the snapshots is removed.
+     */
+    public void cancel() {
+        generation++;
+        waiting = null;
+    }
+
+    private void deliver(int submittedGeneration, T result, RuntimeException error) {
+        mapping = false;
+        if (submittedGeneration == generation) {
+            if (error != null) {
+                errorReceiver.accept(error);
+            } else {
+                receiver.accept(result);
+            }
+        }
+        if (waiting != null) {
+            S next = waiting;
+            waiting = null;
+            submit(next);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ezchat.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.ezchat.utils.AppExecutors;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+
+import java.util.function.Function;
+
+/**
+ * The mapped contents of one Firestore document, kept up to date while observed.
+ * The snapshot listener is attached when the first observer becomes active and removed when
+ * the last one goes away. Snapshots are mapped on the compute executor and conflated, so a
+ * burst of updates reaches observers as at most two values. The first snapshot is served from
+ * Firestore's local cache when the document is cached. Each value carries the sync status of
+ * its snapshot, which only turns offline as decided by {@link SyncStatusTracker}; if the listener fails or a snapshot cannot be mapped, observers receive the
+ * error instead.
+ * @param <T> The mapped type.
+ */
+class DocumentLiveData<T> extends LiveData<Synced<T>> {
+    private final DocumentReference reference;
+    private final MetadataChanges metadataChanges;
+    private final ConflatingMapper<DocumentSnapshot, Synced<T>> mapper;
+    private final SyncStatusTracker syncStatusTracker = new SyncStatusTracker(this::showOffline);
+    private ListenerRegistration registration;
+
+    /**
+     * Creates the live data of a document.
+     * @param reference The document to listen to.
+     * @param mapping   Maps a snapshot, which may not exist, to the value observers receive.
+     */
+    DocumentLiveData(DocumentReference reference, Function<DocumentSnapshot, T> mapping) {
+        this(reference, MetadataChanges.EXCLUDE, mapping);
+    }
+
+    /**
+     * Creates the live data of a document.
+     * @param reference       The document to listen to.
+     * @param metadataChanges Whether snapshots that only change the sync state are mapped too,
+     *                        for observers that show it.
+     * @param mapping         Maps a snapshot, which may not exist, to the value observers receive.
+     */
+    DocumentLiveData(DocumentReference reference, MetadataChanges metadataChanges,
+                     Function<DocumentSnapshot, T> mapping) {
+        this.reference = reference;
+        this.metadataChanges = metadataChanges;
+        this.mapper = new ConflatingMapper<>(AppExecutors.compute(),
+                snapshot -> new Synced<>(mapping.apply(snapshot), SyncStatus.of(snapshot.getMetadata())),
+                this::deliver, e -> setValue(Synced.failed(e)));
+    }
+
+    @Override
+    protected void onActive() {
+        syncStatusTracker.start();
+        registration = reference.addSnapshotListener(metadataChanges, (snapshot, e) -> {
+            if (e != null) {
+                // The listener is removed by Firestore after an error; drop anything still mapping
+                mapper.cancel();
+                setValue(Synced.failed(e));
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            mapper.submit(snapshot);
+        });
+    }
+
+    @Override
+    protected void onInactive() {
+        registration.remove();
+        registration = null;
+        mapper.cancel();
+        syncStatusTracker.stop();
+    }
+
+    private void deliver(Synced<T> mapped) {
+        SyncStatus status = syncStatusTracker.resolve(mapped.getStatus());
+        setValue(status == mapped.getStatus() ? mapped : new Synced<>(mapped.getValue(), status));
+    }
+
+    private void showOffline() {
+        Synced<T> current = getValue();
+        if (current != null && current.getError() == null) {
+            setValue(new Synced<>(current.getValue(), SyncStatus.OFFLINE));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ezchat.repository;
+
+import androidx.annotation.StringRes;
+
+import com.example.ezchat.R;
+import com.google.firebase.firestore.SnapshotMetadata;
+
+/**
+ * Whether data shown from Firestore matches the server.
+ */
+public enum SyncStatus {
+    /** Up to date with the server. */
+    SYNCED(0),
+    /** Served from the local cache while the server has not answered yet, as on every start. */
+    CACHED(0),
+    /** Served from the local cache because the server cannot be reached. */
+    OFFLINE(R.string.sync_status_offline),
+    /** Contains local changes the server has not acknowledged yet. */
+    PENDING_WRITES(R.string.sync_status_pending);
+
+    @StringRes
+    private final int label;
+
+    SyncStatus(@StringRes int label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the text shown for this status.
+     * @return The string resource, or 0 for {@link #SYNCED} and {@link #CACHED}, which show nothing.
+     */
+    @StringRes
+    public int getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the status of a snapshot on its own. Pending local changes take precedence over
+     * being cached, since they are what the user is waiting for. Whether cached data means the
+     * app is offline depends on the snapshots before it, see {@link SyncStatusTracker}.
+     * @param metadata The snapshot's metadata.
+     * @return {@link #PENDING_WRITES}, {@link #CACHED} or {@link #SYNCED}.
+     */
+    public static SyncStatus of(SnapshotMetadata metadata) {
+        return of(metadata.hasPendingWrites(), metadata.isFromCache());
+    }
+
+    static SyncStatus of(boolean hasPendingWrites, boolean fromCache) {
+        if (hasPendingWrites) {
+            return PENDING_WRITES;
+        }
+        return fromCache ? CACHED : SYNCED;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ezchat.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Decides when data served from the local cache counts as offline, for one snapshot listener.
+ * Every listener starts on cached data, so cached snapshots are only reported as
+ * {@link SyncStatus#OFFLINE} once the server has answered and the listener has fallen back to
+ * the cache since, or once the server has not answered within a grace period. Until then they
+ * are reported as {@link SyncStatus#CACHED}, which shows nothing.
+ *
+ * Must be used from the main thread.
+ */
+class SyncStatusTracker {
+    // How long a newly attached listener may wait for the server before it counts as offline
+    static final long GRACE_PERIOD_MILLIS = 5 * 1000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable gracePeriodOver = this::onGracePeriodOver;
+    private final Runnable onOffline;
+
+    private boolean serverSeen;
+    private boolean gracePeriodElapsed;
+    private SyncStatus current;
+
+    /**
+     * Creates a tracker.
+     * @param onOffline Called when the grace period ends while the last status was
+     *                  {@link SyncStatus#CACHED}, so the owner can show it as offline.
+     */
+    SyncStatusTracker(Runnable onOffline) {
+        this.onOffline = onOffline;
+    }
+
+    /**
+     * Starts following a newly attached listener, which has not heard from the server yet.
+     */
+    void start() {
+        handler.removeCallbacks(gracePeriodOver);
+        serverSeen = false;
+        gracePeriodElapsed = false;
+        current = null;
+        handler.postDelayed(gracePeriodOver, GRACE_PERIOD_MILLIS);
+    }
+
+    /**
+     * Stops following the listener, for example when it is removed.
+     */
+    void stop() {
+        handler.removeCallbacks(gracePeriodOver);
+    }
+
+    /**
+     * Returns the status to show for a snapshot of the listener, in the order they are received.
+     * @param status The status of the snapshot, from {@link SyncStatus#of}.
+     * @return The status to show.
+     */
+    SyncStatus resolve(SyncStatus status) {
+        if (status == SyncStatus.SYNCED) {
+            serverSeen = true;
+        }
+        current = resolve(status, serverSeen || gracePeriodElapsed);
+        return current;
+    }
+
+    /**
+     * Returns the status to show for a snapshot.
+     * @param status        The status of the snapshot.
+     * @param serverOverdue Whether the server answered before, or failed to answer in time.
+     * @return {@link SyncStatus#OFFLINE} for cached snapshots once the server is overdue,
+     *         otherwise the status itself.
+     */
+    static SyncStatus resolve(SyncStatus status, boolean serverOverdue) {
+        return status == SyncStatus.CACHED && serverOverdue ? SyncStatus.OFFLINE : status;
+    }
+
+    private void onGracePeriodOver() {
+        gracePeriodElapsed = true;
+        if (current == SyncStatus.CACHED) {
+            current = SyncStatus.OFFLINE;
+            onOffline.run();
+        }
+    }
+}
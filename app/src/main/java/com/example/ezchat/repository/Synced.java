@@ -0,0 +1,61 @@
+package com.example.ezchat.repository;
+
+/**
+ * A value read from Firestore together with the sync status of the snapshot it came from,
+ * or the error that stopped it from being read.
+ * @param <T> The value type.
+ */
+public final class Synced<T> {
+    private final T value;
+    private final SyncStatus status;
+    private final Exception error;
+
+    /**
+     * Creates a synced value.
+     * @param value  The value.
+     * @param status The sync status of its snapshot.
+     */
+    public Synced(T value, SyncStatus status) {
+        this(value, status, null);
+    }
+
+    private Synced(T value, SyncStatus status, Exception error) {
+        this.value = value;
+        this.status = status;
+        this.error = error;
+    }
+
+    /**
+     * Creates the result of a read that failed.
+     * @param error Why the value could not be read.
+     * @param <T>   The value type.
+     * @return A result without value or status.
+     */
+    public static <T> Synced<T> failed(Exception error) {
+        return new Synced<>(null, null, error);
+    }
+
+    /**
+     * Returns the value.
+     * @return The value, or null if the read failed.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the sync status of the value's snapshot.
+     * @return The status, or null if the read failed.
+     */
+    public SyncStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns why the value could not be read.
+     * @return The error, or null if the value was read.
+     */
+    public Exception getError() {
+        return error;
+    }
+}
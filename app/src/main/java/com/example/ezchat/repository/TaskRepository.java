@@ -0,0 +1,61 @@
+package com.example.ezchat.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.ezchat.mapper.Mappers;
+import com.example.ezchat.utils.FirebaseUtil;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.MetadataChanges;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access to the current user's calendar tasks, stored as one document per date holding the
+ * list of task texts.
+ */
+public class TaskRepository {
+    private static final String FIELD_TASKS = "tasks";
+
+    private static final TaskRepository INSTANCE = new TaskRepository();
+
+    private TaskRepository() {
+    }
+
+    /**
+     * Returns the shared task repository.
+     * @return The process-wide TaskRepository.
+     */
+    public static TaskRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Observes the tasks of one date, cached tasks first. Saved tasks show up right away, marked
+     * as pending until the server acknowledges them.
+     * @param date The date, formatted as yyyy-MM-dd.
+     * @return Live data of the tasks, empty while none are saved for the date, with their sync
+     *         status or the error that stopped them from loading.
+     */
+    public LiveData<Synced<List<String>>> observeTasks(String date) {
+        return new DocumentLiveData<>(FirebaseUtil.getTaskReference(date), MetadataChanges.INCLUDE, snapshot -> {
+            List<String> tasks = Mappers.toStringList(snapshot.get(FIELD_TASKS));
+            return tasks != null ? Collections.unmodifiableList(tasks) : Collections.<String>emptyList();
+        });
+    }
+
+    /**
+     * Replaces the tasks of one date.
+     * @param date  The date, formatted as yyyy-MM-dd.
+     * @param tasks The tasks of the date.
+     * @return The write.
+     */
+    public Task<Void> saveTasks(String date, List<String> tasks) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(FIELD_TASKS, new ArrayList<>(tasks));
+        return FirebaseUtil.getTaskReference(date).set(data);
+    }
+}
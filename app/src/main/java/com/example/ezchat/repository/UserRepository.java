@@ -0,0 +1,51 @@
+package com.example.ezchat.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.ezchat.mapper.Mappers;
+import com.example.ezchat.model.UserModel;
+import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.UserCache;
+import com.google.android.gms.tasks.Task;
+
+/**
+ * Access to user profiles. One-off lookups go through the {@link UserCache}; observed profiles
+ * follow the user document and keep the cache up to date as they change.
+ */
+public class UserRepository {
+    private static final UserRepository INSTANCE = new UserRepository();
+
+    private UserRepository() {
+    }
+
+    /**
+     * Returns the shared user repository.
+     * @return The process-wide UserRepository.
+     */
+    public static UserRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a user's profile once, from the cache if it is fresh.
+     * @param userId The ID of the user.
+     * @return A task resolving to the profile, or to null if the user does not exist.
+     */
+    public Task<UserModel> getUser(String userId) {
+        return UserCache.getInstance().get(userId);
+    }
+
+    /**
+     * Observes a user's profile. The value is null while the user document does not exist.
+     * @param userId The ID of the user.
+     * @return Live data of the profile, or of the error that stopped it from loading, listening
+     *         to Firestore while observed.
+     */
+    public LiveData<Synced<UserModel>> observeUser(String userId) {
+        return new DocumentLiveData<>(FirebaseUtil.allUserCollectionReference().document(userId), snapshot -> {
+            UserModel user = Mappers.toObject(snapshot, UserModel.class);
+            UserCache.getInstance().put(user);
+            return user;
+        });
+    }
+}
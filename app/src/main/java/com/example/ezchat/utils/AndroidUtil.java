@@ -33,6 +33,7 @@ public class AndroidUtil {
         intent.putExtra("phone", model.getPhone());
         intent.putExtra("userId", model.getUserId());
         intent.putExtra("fcmToken", model.getFcmToken());
+        intent.putExtra("profilePicUrl", model.getProfilePicUrl());
     }
     /**
      * Extracts user information from an Intent and converts it to a UserModel.
@@ -46,8 +47,22 @@ public class AndroidUtil {
         userModel.setPhone(intent.getStringExtra("phone"));
         userModel.setUserId(intent.getStringExtra("userId"));
         userModel.setFcmToken(intent.getStringExtra("fcmToken"));
+        userModel.setProfilePicUrl(intent.getStringExtra("profilePicUrl"));
         return userModel;
     }
+    /**
+     * Derives a stable RecyclerView item ID from a document ID.
+     * A 64-bit hash is used so collisions stay unlikely even in long lists.
+     * @param id The document ID.
+     * @return A stable item ID.
+     */
+    public static long stableId(String id) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = 31 * hash + id.charAt(i);
+        }
+        return hash;
+    }
     /**
      * Sets a profile picture in an ImageView using a circular crop transformation.
      * @param context    The context in which the operation is performed.
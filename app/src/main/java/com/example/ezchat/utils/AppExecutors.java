@@ -0,0 +1,61 @@
+package com.example.ezchat.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executors used to keep disk access and CPU-bound work off the main thread and to post
+ * results back to it. Firestore task continuations that map documents pass {@link #compute()}
+ * to continueWith, and only hand finished results to listeners on the main thread.
+ */
+public class AppExecutors {
+    // Leave a core for the main and render threads, but never use more than four
+    private static final int COMPUTE_THREADS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ExecutorService IO = Executors.newFixedThreadPool(2);
+    private static final ExecutorService COMPUTE =
+            Executors.newFixedThreadPool(COMPUTE_THREADS, backgroundThreads("compute"));
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN = MAIN_HANDLER::post;
+
+    /**
+     * Returns the executor for database and file access.
+     * @return The shared I/O executor.
+     */
+    public static ExecutorService io() {
+        return IO;
+    }
+
+    /**
+     * Returns the executor for CPU-bound work such as mapping documents and measuring text.
+     * Its threads run at background priority, so they do not compete with drawing.
+     * @return The shared compute executor.
+     */
+    public static ExecutorService compute() {
+        return COMPUTE;
+    }
+
+    /**
+     * Returns an executor that runs tasks on the main thread.
+     * @return The main thread executor.
+     */
+    public static Executor main() {
+        return MAIN;
+    }
+
+    private static ThreadFactory backgroundThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, name + "-" + count.incrementAndGet());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.ezchat.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.widget.ImageView;
+
+import com.bumptech.glide.Glide;
+import com.example.ezchat.R;
+import com.google.firebase.storage.StorageException;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent cache mapping user IDs to profile picture download URLs.
+ * Resolving a download URL costs a Storage round trip before Glide can start loading, so
+ * resolved URLs are kept on disk and repeat views go straight to Glide's disk cache.
+ */
+public class AvatarUrlCache {
+    private static AvatarUrlCache instance;
+
+    private final Context context;
+    private final SharedPreferences preferences;
+    private final Map<String, String> urls = new HashMap<>();
+    // Users without a picture in Storage, so their rows do not retry on every bind.
+    private final Set<String> missing = new HashSet<>();
+
+    private AvatarUrlCache(Context context) {
+        this.context = context.getApplicationContext();
+        preferences = this.context.getSharedPreferences(Constants.KEY_AVATAR_URL_PREFERENCE_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Returns the shared avatar URL cache.
+     * @param context Any context; the application context is retained.
+     * @return The process-wide AvatarUrlCache.
+     */
+    public static synchronized AvatarUrlCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new AvatarUrlCache(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Loads a user's profile picture into an ImageView.
+     * A URL already known from the user's profile is used and remembered directly; otherwise the
+     * cached URL is used, and only a user never seen before costs a download URL lookup.
+     * The placeholder is shown right away so a recycled row never shows the previous user's
+     * picture, and a lookup that finishes after the row was rebound for another user is ignored.
+     * Only users whose picture does not exist in Storage are remembered as missing; other
+     * failures are retried on the next bind.
+     * @param userId    The ID of the user whose picture is shown.
+     * @param knownUrl  The picture URL from the user's profile or chatroom summary, or null.
+     * @param imageView The ImageView to load the picture into.
+     */
+    public void loadInto(String userId, String knownUrl, ImageView imageView) {
+        Glide.with(context).clear(imageView);
+        imageView.setImageResource(R.drawable.ic_person);
+        imageView.setTag(R.id.avatar_user_id, userId);
+        if (knownUrl != null && !knownUrl.isEmpty()) {
+            put(userId, knownUrl);
+            AndroidUtil.setProfilePic(context, Uri.parse(knownUrl), imageView);
+            return;
+        }
+        String url = get(userId);
+        if (url != null) {
+            AndroidUtil.setProfilePic(context, Uri.parse(url), imageView);
+            return;
+        }
+        if (isMissing(userId)) {
+            return;
+        }
+        FirebaseUtil.getOtherProfilePicStorageRef(userId).getDownloadUrl()
+                .addOnCompleteListener(t -> {
+                    if (t.isSuccessful()) {
+                        Uri uri = t.getResult();
+                        put(userId, uri.toString());
+                        if (userId.equals(imageView.getTag(R.id.avatar_user_id))) {
+                            AndroidUtil.setProfilePic(context, uri, imageView);
+                        }
+                    } else if (t.getException() instanceof StorageException
+                            && ((StorageException) t.getException()).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND) {
+                        markMissing(userId);
+                    }
+                });
+    }
+
+    /**
+     * Returns the cached download URL of a user's profile picture.
+     * @param userId The ID of the user.
+     * @return The cached URL, or null if none is cached.
+     */
+    public synchronized String get(String userId) {
+        String url = urls.get(userId);
+        if (url == null) {
+            url = preferences.getString(userId, null);
+            if (url != null) {
+                urls.put(userId, url);
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Remembers the download URL of a user's profile picture, replacing any previous one.
+     * @param userId The ID of the user.
+     * @param url    The download URL.
+     */
+    public synchronized void put(String userId, String url) {
+        missing.remove(userId);
+        if (url.equals(urls.get(userId))) {
+            return;
+        }
+        urls.put(userId, url);
+        preferences.edit().putString(userId, url).apply();
+    }
+
+    private synchronized boolean isMissing(String userId) {
+        return missing.contains(userId);
+    }
+
+    private synchronized void markMissing(String userId) {
+        missing.add(userId);
+    }
+
+    /**
+     * Forgets a user's profile picture URL so the next view resolves it again.
+     * @param userId The ID of the user.
+     */
+    public synchronized void invalidate(String userId) {
+        urls.remove(userId);
+        missing.remove(userId);
+        preferences.edit().remove(userId).apply();
+    }
+}
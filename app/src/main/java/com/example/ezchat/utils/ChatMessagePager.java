@@ -0,0 +1,496 @@
+package com.example.ezchat.utils;
+
+import com.example.ezchat.database.MessageDao;
+import com.example.ezchat.database.MessageEntity;
+import com.example.ezchat.mapper.Mappers;
+import com.example.ezchat.model.ChatMessageModel;
+import com.example.ezchat.model.MessageItem;
+import com.example.ezchat.repository.ConflatingMapper;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the message history of a chatroom in pages instead of through one unbounded live query.
+ * Messages are first rendered from the local message store; Firestore is then only asked for
+ * the newest page of messages newer than the last synced timestamp, and everything it returns is
+ * written back to disk. If more messages arrived than one page holds, the rest of that gap is
+ * fetched with cursor queries as the user scrolls back, and nothing from it is written to disk
+ * until it reaches the last synced message, so the disk copy never has holes.
+ * Older pages are read from disk, or fetched with cursor queries once the disk runs out, and are
+ * dropped again once they are far off-screen.
+ * Messages still in the outbound queue are shown ahead of the history until their server copy arrives.
+ * Messages are held as compact {@link MessageItem}s with interned sender IDs and exposed newest
+ * first, matching the reversed layout used by ChatActivity.
+ * Live snapshots are mapped on the compute executor and conflated, so a burst of new messages
+ * or acknowledgements is applied in at most two steps.
+ */
+public class ChatMessagePager {
+
+    /**
+     * Receives the current window of messages every time it changes.
+     */
+    public interface Listener {
+        /**
+         * Called on the main thread with the messages currently held in memory.
+         * @param messages Messages ordered from newest to oldest.
+         */
+        void onMessagesChanged(List<MessageItem> messages);
+
+        /**
+         * Called on the main thread when the snapshot listener fails. The messages already
+         * delivered stay valid, but no new ones arrive until the pager is started again.
+         * @param e Why the listener failed.
+         */
+        void onMessagesFailed(Exception e);
+    }
+
+    private final String chatroomId;
+    private final MessageDao messageDao;
+    private final int pageSize;
+    private final Listener listener;
+    private final ParticipantInterner participants = new ParticipantInterner(FirebaseUtil.currentUserId());
+    private final ConflatingMapper<QuerySnapshot, List<ChatMessageModel>> liveMapper =
+            new ConflatingMapper<>(AppExecutors.compute(), this::toModels, this::onLiveMessages);
+
+    private boolean started;
+    private ListenerRegistration liveRegistration;
+    // Messages returned by the live listener, kept in sync with Firestore.
+    private final List<MessageItem> liveMessages = new ArrayList<>();
+    // Older messages read from disk or with one-shot cursor queries, newest first.
+    private final List<MessageItem> olderMessages = new ArrayList<>();
+    // Messages sent from this device that the server has not acknowledged yet, newest first.
+    private final List<MessageItem> pendingMessages = new ArrayList<>();
+
+    private boolean loadingOlder;
+    private boolean hasMoreOlder = true;
+    // Last synced timestamp when the listener was attached, in nanoseconds, or null if never synced.
+    private Long syncFloor;
+    // Confirmed messages held back from disk while the live page may not reach back to syncFloor.
+    private List<ChatMessageModel> unsynced;
+    // Whether older pages must come from Firestore because messages between them and syncFloor are missing.
+    private boolean gapOpen;
+
+    /**
+     * Creates a pager for the messages of one chatroom.
+     * @param chatroomId The chatroom whose messages are loaded.
+     * @param messageDao The local message store.
+     * @param pageSize   Number of messages fetched per page.
+     * @param listener   Receives the message window whenever it changes.
+     */
+    public ChatMessagePager(String chatroomId, MessageDao messageDao, int pageSize, Listener listener) {
+        this.chatroomId = chatroomId;
+        this.messageDao = messageDao;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Renders the newest page from disk, then attaches the snapshot listener for
+     * messages that arrived since the last sync. Does nothing while the listener is attached,
+     * so it can be called again to recover after the listener failed.
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        AppExecutors.io().execute(() -> {
+            Long lastSynced = messageDao.getLastSynced(chatroomId);
+            List<MessageEntity> cached = lastSynced != null
+                    ? messageDao.getNewest(chatroomId, pageSize)
+                    : new ArrayList<>();
+            AppExecutors.main().execute(() -> {
+                if (!started) {
+                    return;
+                }
+                // Start over from the disk copy when recovering from a failed listener
+                liveMessages.clear();
+                olderMessages.clear();
+                hasMoreOlder = true;
+                for (MessageEntity entity : cached) {
+                    olderMessages.add(toItem(entity));
+                }
+                if (!cached.isEmpty()) {
+                    publish();
+                }
+                attachLiveListener(lastSynced);
+            });
+        });
+    }
+
+    /**
+     * Detaches the snapshot listener. Messages already loaded stay in memory.
+     */
+    public void stop() {
+        started = false;
+        if (liveRegistration != null) {
+            liveRegistration.remove();
+            liveRegistration = null;
+        }
+        liveMapper.cancel();
+    }
+
+    /**
+     * Loads the next page of older messages, unless one is already loading
+     * or the start of the conversation has been reached.
+     */
+    public void loadOlder() {
+        MessageItem cursor = oldestLoadedMessage();
+        if (loadingOlder || !hasMoreOlder || cursor == null) {
+            return;
+        }
+        loadingOlder = true;
+        if (gapOpen) {
+            loadOlderFromFirestore(cursor);
+            return;
+        }
+        AppExecutors.io().execute(() -> {
+            List<MessageEntity> cached = messageDao.getOlderThan(chatroomId,
+                    cursor.getTimestampNanos(), cursor.getMessageId(), pageSize);
+            AppExecutors.main().execute(() -> {
+                if (cursor != oldestLoadedMessage()) {
+                    // The older messages were trimmed or replaced while the page was read.
+                    loadingOlder = false;
+                    return;
+                }
+                if (cached.isEmpty()) {
+                    loadOlderFromFirestore(cursor);
+                    return;
+                }
+                loadingOlder = false;
+                // Start over from the disk copy when recovering from a failed listener
+                liveMessages.clear();
+                olderMessages.clear();
+                hasMoreOlder = true;
+                for (MessageEntity entity : cached) {
+                    olderMessages.add(toItem(entity));
+                }
+                publish();
+            });
+        });
+    }
+
+    /**
+     * Drops older pages that are no longer needed to display the given number of messages.
+     * Pages are only dropped in whole page units so scrolling back reloads at most one page.
+     * @param keepCount Number of messages, counted from the newest, that must stay in memory.
+     */
+    public void trimTo(int keepCount) {
+        int olderToKeep = Math.max(0, keepCount - liveMessages.size());
+        // Round up to a whole page to avoid reloading the page the user is looking at.
+        olderToKeep = ((olderToKeep + pageSize - 1) / pageSize) * pageSize;
+        if (olderMessages.size() - olderToKeep < pageSize) {
+            return;
+        }
+        olderMessages.subList(olderToKeep, olderMessages.size()).clear();
+        hasMoreOlder = true;
+        publish();
+    }
+
+    /**
+     * Shows messages from the outbound queue ahead of the history. A pending message is hidden
+     * as soon as a copy with the same ID arrives from Firestore.
+     * @param pendingMessages Unsent messages, newest first.
+     */
+    public void setPendingMessages(List<ChatMessageModel> pendingMessages) {
+        this.pendingMessages.clear();
+        for (ChatMessageModel message : pendingMessages) {
+            this.pendingMessages.add(toItem(message));
+        }
+        publish();
+    }
+
+    /**
+     * Returns whether older pages can still be requested.
+     * @return True if the start of the conversation has not been loaded yet.
+     */
+    public boolean hasMoreOlder() {
+        return hasMoreOlder;
+    }
+
+    /**
+     * Listens for the newest page of messages. When the chatroom was synced before, only messages
+     * newer than the last synced timestamp are requested, and their disk writes are held back
+     * until the first server snapshot shows whether the page reaches back to that timestamp.
+     * @param lastSynced The last synced timestamp in nanoseconds, or null if never synced.
+     */
+    private void attachLiveListener(Long lastSynced) {
+        syncFloor = lastSynced;
+        unsynced = lastSynced != null ? new ArrayList<>() : null;
+        gapOpen = false;
+        Query query = lastSynced != null
+                ? newestFirst().whereGreaterThan("timestamp", MessageEntity.fromNanos(lastSynced))
+                : newestFirst();
+        PerfTracer.Span firstSnapshot = PerfTracer.beginAsync("firestore.firstSnapshot.messages");
+        // Metadata changes are included so messages stop showing as pending once acknowledged.
+        liveRegistration = query.limit(pageSize).addSnapshotListener(MetadataChanges.INCLUDE, (snapshot, e) -> {
+            firstSnapshot.end();
+            if (e != null) {
+                // Firestore removes the listener after an error; start() attaches a new one
+                liveRegistration = null;
+                started = false;
+                liveMapper.cancel();
+                listener.onMessagesFailed(e);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            checkForGap(snapshot);
+            liveMapper.submit(snapshot);
+        });
+    }
+
+    /**
+     * Decides from a live snapshot whether messages are missing between the live page and the
+     * last synced message. A full page means more may have arrived than it holds: the disk
+     * messages shown below it are dropped and older pages come from Firestore until the gap is
+     * closed. A server snapshot that is not full means the page is contiguous with the disk copy.
+     * @param snapshot A snapshot of the live query.
+     */
+    private void checkForGap(QuerySnapshot snapshot) {
+        if (unsynced == null || gapOpen) {
+            return;
+        }
+        if (snapshot.size() >= pageSize) {
+            gapOpen = true;
+            olderMessages.clear();
+            hasMoreOlder = true;
+        } else if (!snapshot.getMetadata().isFromCache()) {
+            List<ChatMessageModel> held = unsynced;
+            unsynced = null;
+            store(held, true);
+        }
+    }
+
+    /**
+     * Fetches a page older than the given cursor from Firestore and writes it to disk.
+     * While a gap is open the page stops at the last synced message, and a short page closes the gap.
+     * @param cursor The oldest message currently loaded.
+     */
+    private void loadOlderFromFirestore(MessageItem cursor) {
+        boolean fillingGap = gapOpen;
+        Query query = fillingGap
+                ? newestFirst().whereGreaterThan("timestamp", MessageEntity.fromNanos(syncFloor))
+                : newestFirst();
+        PerfTracer.track("firestore.read.messagePage",
+                query.startAfter(MessageEntity.fromNanos(cursor.getTimestampNanos()), cursor.getMessageId())
+                        .limit(pageSize).get())
+                .continueWith(AppExecutors.compute(), task -> toModels(task.getResult()))
+                .addOnCompleteListener(task -> {
+                    loadingOlder = false;
+                    if (!task.isSuccessful() || cursor != oldestLoadedMessage() || fillingGap != gapOpen) {
+                        return;
+                    }
+                    List<ChatMessageModel> page = task.getResult();
+                    for (ChatMessageModel message : page) {
+                        olderMessages.add(toItem(message));
+                    }
+                    store(page, false);
+                    if (!fillingGap) {
+                        hasMoreOlder = page.size() == pageSize;
+                    } else if (page.size() < pageSize) {
+                        closeGap();
+                    }
+                    publish();
+                });
+    }
+
+    /**
+     * Writes the messages held back while the gap was open, now that everything between the
+     * live page and the last synced message has been fetched, and moves the sync marker.
+     * Older pages are read from disk again.
+     */
+    private void closeGap() {
+        gapOpen = false;
+        List<ChatMessageModel> held = unsynced;
+        unsynced = null;
+        store(held, true);
+    }
+
+    /**
+     * Maps the result of a query, off the main thread.
+     * @param snapshot A snapshot of the live query or of a page of older messages.
+     * @return The messages of the snapshot, newest first.
+     */
+    private List<ChatMessageModel> toModels(QuerySnapshot snapshot) {
+        List<ChatMessageModel> messages = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            messages.add(toModel(document));
+        }
+        return messages;
+    }
+
+    /**
+     * Applies the latest messages of the live query and writes newly confirmed ones to disk.
+     * Snapshots may have been skipped, so changes are found by comparing with the messages
+     * applied last. Messages pushed out of a limited page by newer ones are moved to the front
+     * of the older messages so the history stays continuous; messages that left the page for
+     * any other reason were deleted on the server and are removed from disk as well.
+     * @param messages The messages of the latest snapshot, newest first.
+     */
+    private void onLiveMessages(List<ChatMessageModel> messages) {
+        Map<String, MessageItem> previous = new HashMap<>(liveMessages.size() * 4 / 3 + 1);
+        for (MessageItem item : liveMessages) {
+            previous.put(item.getMessageId(), item);
+        }
+        List<MessageItem> items = new ArrayList<>(messages.size());
+        List<ChatMessageModel> synced = new ArrayList<>();
+        for (ChatMessageModel message : messages) {
+            MessageItem item = toItem(message);
+            MessageItem old = previous.remove(message.getMessageId());
+            if (!message.isPending() && (old == null || old.isPending() || !old.hasSameContents(item))) {
+                synced.add(message);
+            }
+            items.add(item);
+        }
+        // What is left of the previous messages is no longer in the live page. Only a full page
+        // pushes messages out, and only those older than its new oldest message; keep them newest first.
+        MessageItem oldestLive = items.size() >= pageSize ? items.get(items.size() - 1) : null;
+        List<MessageItem> pushedOut = new ArrayList<>(previous.size());
+        List<String> deleted = new ArrayList<>();
+        for (MessageItem item : liveMessages) {
+            if (!previous.containsKey(item.getMessageId())) {
+                continue;
+            }
+            if (oldestLive != null && isOlder(item, oldestLive)) {
+                pushedOut.add(item);
+            } else {
+                deleted.add(item.getMessageId());
+            }
+        }
+        olderMessages.addAll(0, pushedOut);
+
+        liveMessages.clear();
+        liveMessages.addAll(items);
+        if (!deleted.isEmpty()) {
+            if (unsynced != null) {
+                unsynced.removeIf(message -> deleted.contains(message.getMessageId()));
+            }
+            AppExecutors.io().execute(() -> messageDao.delete(chatroomId, deleted));
+        }
+        store(synced, true);
+        if (liveMessages.size() < pageSize && olderMessages.isEmpty()) {
+            hasMoreOlder = false;
+        }
+        publish();
+    }
+
+    /**
+     * Writes messages to the local store in the background, or holds them back while the
+     * live page may not be contiguous with the disk copy.
+     * @param messages     Messages confirmed by the server.
+     * @param advanceSync  Whether the messages come from the live query and may move the sync marker.
+     */
+    private void store(List<ChatMessageModel> messages, boolean advanceSync) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        if (unsynced != null) {
+            unsynced.addAll(messages);
+            return;
+        }
+        List<MessageEntity> entities = new ArrayList<>(messages.size());
+        for (ChatMessageModel message : messages) {
+            entities.add(MessageEntity.fromModel(chatroomId, message));
+        }
+        AppExecutors.io().execute(() -> {
+            if (advanceSync) {
+                messageDao.insertSynced(chatroomId, entities);
+            } else {
+                messageDao.upsert(entities);
+            }
+        });
+    }
+
+    /**
+     * Returns the oldest message held in memory, used as the cursor for the next page.
+     * @return The oldest loaded message, or null if nothing has been loaded yet.
+     */
+    private MessageItem oldestLoadedMessage() {
+        if (!olderMessages.isEmpty()) {
+            return olderMessages.get(olderMessages.size() - 1);
+        }
+        if (!liveMessages.isEmpty()) {
+            return liveMessages.get(liveMessages.size() - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Compares two messages in query order: by timestamp, then by document ID.
+     * @param message The message to check.
+     * @param other   The message to compare with.
+     * @return True if the message comes before the other one in the history.
+     */
+    private static boolean isOlder(MessageItem message, MessageItem other) {
+        if (message.getTimestampNanos() != other.getTimestampNanos()) {
+            return message.getTimestampNanos() < other.getTimestampNanos();
+        }
+        return message.getMessageId().compareTo(other.getMessageId()) < 0;
+    }
+
+    private ChatMessageModel toModel(DocumentSnapshot document) {
+        ChatMessageModel model = Mappers.toObject(document, ChatMessageModel.class,
+                DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
+        model.setMessageId(document.getId());
+        model.setPending(document.getMetadata().hasPendingWrites());
+        return model;
+    }
+
+    private MessageItem toItem(ChatMessageModel model) {
+        return toItem(model.getMessageId(), model.getMessage(), model.getSenderId(),
+                model.getTimestamp() != null ? MessageEntity.toNanos(model.getTimestamp()) : 0,
+                model.isPending(), model.isFailed());
+    }
+
+    private MessageItem toItem(MessageEntity entity) {
+        return toItem(entity.messageId, entity.message, entity.senderId, entity.timestamp, false, false);
+    }
+
+    private MessageItem toItem(String messageId, String message, String senderId, long timestampNanos,
+                               boolean pending, boolean failed) {
+        int senderIndex = participants.intern(senderId);
+        return new MessageItem(messageId, AndroidUtil.stableId(messageId), message != null ? message : "",
+                senderIndex, timestampNanos, senderIndex == ParticipantInterner.CURRENT_USER, pending, failed);
+    }
+
+    /**
+     * Orders messages newest first. Messages sent in one batch share a timestamp,
+     * so ties are broken by their creation-ordered document IDs.
+     * @return The ordered message query.
+     */
+    private Query newestFirst() {
+        return FirebaseUtil.getChatroomMessageReference(chatroomId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+    }
+
+    private void publish() {
+        List<MessageItem> messages = new ArrayList<>(
+                pendingMessages.size() + liveMessages.size() + olderMessages.size());
+        Set<String> liveIds = new HashSet<>();
+        for (MessageItem message : liveMessages) {
+            liveIds.add(message.getMessageId());
+        }
+        for (MessageItem message : pendingMessages) {
+            if (!liveIds.contains(message.getMessageId())) {
+                messages.add(message);
+            }
+        }
+        messages.addAll(liveMessages);
+        messages.addAll(olderMessages);
+        listener.onMessagesChanged(messages);
+    }
+}
@@ -7,5 +7,7 @@ public class Constants {
     public static final String KEY_PASSWORD ="password";
     public static final String KEY_PREFERENCE_NAME = "chatAppPreference";
     public static final String KEY_IS_SIGNED_IN = "isSignedIn";
+    public static final String KEY_AVATAR_URL_PREFERENCE_NAME = "avatarUrlCache";
+    public static final String KEY_FIRESTORE_CACHE_SIZE_MB = "firestoreCacheSizeMb";
 
 }
@@ -0,0 +1,123 @@
+package com.example.ezchat.utils;
+
+import com.example.ezchat.model.UserModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-device index of users the current user has chatted with or found in earlier searches.
+ * Searches are answered from a prefix trie without touching the network; contacts rank above
+ * users only seen in search results, and more frequently opened chats rank higher.
+ */
+public class ContactSearchIndex {
+    private static final ContactSearchIndex INSTANCE = new ContactSearchIndex();
+
+    private final PrefixTrie trie = new PrefixTrie();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Returns the shared contact index.
+     * @return The process-wide ContactSearchIndex.
+     */
+    public static ContactSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds a user the current user has a chatroom with.
+     * @param user The other participant of a chatroom.
+     */
+    public synchronized void addContact(UserModel user) {
+        Entry entry = add(user);
+        if (entry != null) {
+            entry.contact = true;
+        }
+    }
+
+    /**
+     * Adds users returned by a server search.
+     * @param users The users found.
+     */
+    public synchronized void addSearchResults(Collection<UserModel> users) {
+        for (UserModel user : users) {
+            add(user);
+        }
+    }
+
+    /**
+     * Records that a chat with the given user was opened, raising their rank.
+     * @param user The user whose chat was opened.
+     */
+    public synchronized void recordOpened(UserModel user) {
+        Entry entry = add(user);
+        if (entry != null) {
+            entry.contact = true;
+            entry.openCount++;
+        }
+    }
+
+    /**
+     * Returns indexed users whose username starts with the search term, best ranked first.
+     * @param searchTerm The text typed by the user.
+     * @param limit      Maximum number of users to return.
+     * @return The matching users.
+     */
+    public synchronized List<UserModel> search(String searchTerm, int limit) {
+        String prefix = UserModel.toSearchKey(searchTerm);
+        List<Entry> matches = new ArrayList<>();
+        for (String userId : trie.find(prefix)) {
+            matches.add(entries.get(userId));
+        }
+        Collections.sort(matches, (a, b) -> {
+            if (a.contact != b.contact) {
+                return a.contact ? -1 : 1;
+            }
+            if (a.openCount != b.openCount) {
+                return Integer.compare(b.openCount, a.openCount);
+            }
+            return a.key.compareTo(b.key);
+        });
+        List<UserModel> users = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            users.add(new UserModel(matches.get(i).user));
+        }
+        return users;
+    }
+
+    /**
+     * Adds or refreshes a copy of a user. Details missing from a profile built from a chatroom
+     * summary are kept from the previously indexed profile.
+     * @param user The user to index; it is not modified.
+     * @return The user's entry, or null if the user has no ID or username.
+     */
+    private Entry add(UserModel user) {
+        if (user == null || user.getUserId() == null || user.getSearchKey() == null) {
+            return null;
+        }
+        Entry entry = entries.get(user.getUserId());
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(user.getUserId(), entry);
+        }
+        UserModel indexed = new UserModel(user);
+        if (entry.user != null && indexed.getPhone() == null) {
+            indexed.setPhone(entry.user.getPhone());
+        }
+        entry.user = indexed;
+        entry.key = indexed.getSearchKey();
+        trie.put(indexed.getUserId(), entry.key);
+        return entry;
+    }
+
+    private static class Entry {
+        UserModel user;
+        String key;
+        boolean contact;
+        int openCount;
+    }
+}
@@ -1,18 +1,35 @@
 package com.example.ezchat.utils;
 
+import com.example.ezchat.mapper.Mappers;
+import com.example.ezchat.model.ChatMessageModel;
+import com.example.ezchat.model.UserModel;
+import com.example.ezchat.repository.ChatroomListRepository;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class FirebaseUtil {
 
+    // Firestore rejects write batches with more writes than this.
+    static final int MAX_WRITES_PER_BATCH = 500;
+
     public static String currentUserId(){
         return FirebaseAuth.getInstance().getUid();
     }
@@ -32,10 +49,24 @@ public class FirebaseUtil {
         return FirebaseFirestore.getInstance().collection("users");
     }
 
+    public static DocumentReference getTaskReference(String date){
+        return currentUserDetails().collection("tasks").document(date);
+    }
+
     public static DocumentReference getChatroomReference(String chatroomId){
         return FirebaseFirestore.getInstance().collection("chatrooms").document(chatroomId);
     }
 
+    /**
+     * Reads a document from Firestore's local cache, and from the server only if it is not cached.
+     * @param reference The document to read.
+     * @return A task resolving to the cached or, failing that, the server's snapshot.
+     */
+    public static Task<DocumentSnapshot> getCacheFirst(DocumentReference reference){
+        return reference.get(Source.CACHE).continueWithTask(task ->
+                task.isSuccessful() && task.getResult().exists() ? task : reference.get());
+    }
+
     public static CollectionReference getChatroomMessageReference(String chatroomId){
         return getChatroomReference(chatroomId).collection("chats");
     }
@@ -48,24 +79,107 @@ public class FirebaseUtil {
         }
     }
 
+    /**
+     * Builds a batch that appends messages to a chatroom and updates the chatroom summary once
+     * with the newest of them, so everything is committed together. The messages and the summary
+     * share the server's timestamp; the messages' IDs keep them in order.
+     * @param chatroomId The chatroom the messages are sent to.
+     * @param userIds    The chatroom's participants, in case the chatroom document does not exist yet.
+     * @param messages   The messages to send, oldest first, each with its document ID set and
+     *                   its timestamp left null for the server to fill in.
+     * @return The batch, ready to commit.
+     */
+    public static WriteBatch sendMessageBatch(String chatroomId, List<String> userIds,
+                                              List<ChatMessageModel> messages){
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        for (ChatMessageModel message : messages) {
+            batch.set(getChatroomMessageReference(chatroomId).document(message.getMessageId()), Mappers.toMap(message));
+        }
+
+        ChatMessageModel lastMessage = messages.get(messages.size() - 1);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("chatroomId", chatroomId);
+        summary.put("userIds", userIds);
+        summary.put("lastMessage", lastMessage.getMessage());
+        summary.put("lastMessageSenderId", lastMessage.getSenderId());
+        summary.put("lastMessageTimestamp", FieldValue.serverTimestamp());
+        batch.set(getChatroomReference(chatroomId), summary, SetOptions.merge());
+        return batch;
+    }
+
     public static CollectionReference allChatroomCollectionReference(){
         return FirebaseFirestore.getInstance().collection("chatrooms");
     }
 
     public static DocumentReference getOtherUserFromChatroom(List<String> userIds){
+        return allUserCollectionReference().document(getOtherUserId(userIds));
+    }
+
+    public static String getOtherUserId(List<String> userIds){
         if(userIds.get(0).equals(FirebaseUtil.currentUserId())){
-            return allUserCollectionReference().document(userIds.get(1));
+            return userIds.get(1);
         }else{
-            return allUserCollectionReference().document(userIds.get(0));
+            return userIds.get(0);
+        }
+    }
+
+    /**
+     * Copies a user's username and profile picture URL into the summary of every chatroom
+     * they take part in, so chat lists stay fresh without per-row profile lookups.
+     * The updates are committed in batches of at most {@link #MAX_WRITES_PER_BATCH} writes.
+     * @param user The user whose profile changed.
+     * @return A task that completes once all chatroom summaries are updated, or fails with the
+     *         error of the chatroom query or of the first failed batch.
+     */
+    public static Task<Void> updateParticipantSummaries(UserModel user){
+        return allChatroomCollectionReference()
+                .whereArrayContains("userIds", user.getUserId())
+                .get()
+                .continueWithTask(AppExecutors.compute(), task -> {
+                    if (!task.isSuccessful()) {
+                        return Tasks.forException(task.getException());
+                    }
+                    List<DocumentSnapshot> chatrooms = task.getResult().getDocuments();
+                    List<Task<Void>> commits = new ArrayList<>();
+                    for (int start = 0; start < chatrooms.size(); start += MAX_WRITES_PER_BATCH) {
+                        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+                        int end = Math.min(chatrooms.size(), start + MAX_WRITES_PER_BATCH);
+                        for (DocumentSnapshot chatroom : chatrooms.subList(start, end)) {
+                            batch.update(chatroom.getReference(),
+                                    FieldPath.of("participantNames", user.getUserId()), user.getUsername(),
+                                    FieldPath.of("participantPicUrls", user.getUserId()), user.getProfilePicUrl());
+                        }
+                        commits.add(batch.commit());
+                    }
+                    return Tasks.whenAll(commits);
+                });
+    }
+
+    /**
+     * Writes the search key of a profile that was created before usernames were searched by
+     * prefix, or whose key no longer matches its username, so other users can find it.
+     * @param user The profile to check.
+     * @return A task that completes once the key is written, or right away if it was up to date.
+     */
+    public static Task<Void> backfillSearchKey(UserModel user){
+        if (user == null || user.getUsername() == null) {
+            return Tasks.forResult(null);
+        }
+        String searchKey = UserModel.toSearchKey(user.getUsername());
+        if (searchKey.equals(user.getSearchKey())) {
+            return Tasks.forResult(null);
         }
+        return allUserCollectionReference().document(user.getUserId()).update("searchKey", searchKey);
     }
 
     public static String timestampToString(Timestamp timestamp){
-        return new SimpleDateFormat("HH:MM").format(timestamp.toDate());
+        // Server timestamps read back as null until the write is acknowledged
+        return TimeFormatter.getInstance().formatRelative(timestamp);
     }
 
     public static void logout(){
         FirebaseAuth.getInstance().signOut();
+        ChatroomListRepository.getInstance().reset();
     }
 
     public static StorageReference  getCurrentProfilePicStorageRef(){
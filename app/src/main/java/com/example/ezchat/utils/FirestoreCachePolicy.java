@@ -0,0 +1,84 @@
+package com.example.ezchat.utils;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.StrictMode;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+
+/**
+ * Decides how much disk Firestore's local cache may use and configures it.
+ * Once the cache grows past its size, Firestore evicts the least recently used documents that
+ * no listener is watching and no pending write needs. Devices the system reports as low on RAM,
+ * which usually have little storage as well, get a smaller cache. The size can be overridden
+ * with a preference, which takes effect at the next app start.
+ */
+public class FirestoreCachePolicy {
+    static final long DEFAULT_CACHE_SIZE_MB = 100;
+    static final long LOW_RAM_CACHE_SIZE_MB = 25;
+    // Firestore rejects caches smaller than 1 MB
+    static final long MIN_CACHE_SIZE_MB = 1;
+    static final long MAX_CACHE_SIZE_MB = 500;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    /**
+     * Configures a persistent cache of the size decided by the policy. Must be called before
+     * Firestore is used for anything else.
+     * @param context Any context.
+     */
+    public static void apply(Context context) {
+        long sizeBytes = getCacheSizeMb(context) * BYTES_PER_MB;
+        FirebaseFirestore.getInstance().setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder().setSizeBytes(sizeBytes).build())
+                .build());
+    }
+
+    /**
+     * Returns the cache size for this device.
+     * @param context Any context.
+     * @return The size in megabytes.
+     */
+    public static long getCacheSizeMb(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRamDevice = activityManager != null && activityManager.isLowRamDevice();
+        String configured;
+        // Read once at startup, before anything else touches the preferences
+        StrictMode.ThreadPolicy policy = StrictMode.allowThreadDiskReads();
+        try {
+            configured = new PreferenceManager(context).getString(Constants.KEY_FIRESTORE_CACHE_SIZE_MB);
+        } finally {
+            StrictMode.setThreadPolicy(policy);
+        }
+        return resolveCacheSizeMb(lowRamDevice, configured);
+    }
+
+    /**
+     * Overrides the cache size chosen for this device, starting with the next app start.
+     * @param context Any context.
+     * @param sizeMb  The size in megabytes, or 0 to go back to the device default.
+     */
+    public static void setCacheSizeMb(Context context, long sizeMb) {
+        new PreferenceManager(context).putString(Constants.KEY_FIRESTORE_CACHE_SIZE_MB,
+                sizeMb > 0 ? Long.toString(sizeMb) : null);
+    }
+
+    /**
+     * Resolves the cache size from the device class and the configured override.
+     * @param lowRamDevice Whether the device is low on RAM.
+     * @param configured   The configured size in megabytes, or null if none is configured.
+     * @return The size in megabytes, within the supported range.
+     */
+    static long resolveCacheSizeMb(boolean lowRamDevice, String configured) {
+        long sizeMb = lowRamDevice ? LOW_RAM_CACHE_SIZE_MB : DEFAULT_CACHE_SIZE_MB;
+        if (configured != null) {
+            try {
+                sizeMb = Long.parseLong(configured.trim());
+            } catch (NumberFormatException e) {
+                // Keep the device default
+            }
+        }
+        return Math.max(MIN_CACHE_SIZE_MB, Math.min(MAX_CACHE_SIZE_MB, sizeMb));
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.ezchat.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.ezchat.database.ChatDatabase;
+import com.example.ezchat.database.MessageEntity;
+import com.example.ezchat.database.PendingMessageDao;
+import com.example.ezchat.database.PendingMessageEntity;
+import com.example.ezchat.model.ChatMessageModel;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queue of messages written by the current user that the server has not acknowledged yet.
+ * Messages are persisted before they are sent, so they survive process death, and are shown
+ * as pending right away. Messages queued for the same chatroom within a short window are
+ * committed together in one batch with a single chatroom summary update.
+ * Failed commits are retried with exponential backoff; because each message carries a
+ * client-generated document ID, a retry never creates a duplicate. Messages of a commit the
+ * server rejects for good, or that failed {@link #MAX_ATTEMPTS} times, are marked as failed
+ * instead and stay in the chat until the user retries them.
+ */
+public class OutboundMessageQueue {
+
+    /**
+     * Receives the unsent messages of a chatroom every time they change.
+     */
+    public interface Listener {
+        /**
+         * Called on the main thread with the chatroom's unsent messages.
+         * @param pendingMessages Messages ordered from newest to oldest.
+         */
+        void onPendingMessagesChanged(List<ChatMessageModel> pendingMessages);
+    }
+
+    // Messages queued within this window after the first one are sent in the same batch.
+    private static final long COALESCE_WINDOW_MILLIS = 250;
+    // Firestore batches hold at most 500 writes; one is used for the chatroom summary.
+    private static final int MAX_MESSAGES_PER_BATCH = 400;
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60 * 1000;
+    // Failed commits after which a message is no longer retried automatically.
+    static final int MAX_ATTEMPTS = 5;
+    private static final String ID_ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static OutboundMessageQueue instance;
+
+    private final PendingMessageDao pendingMessageDao;
+    private final Handler flushHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, List<Listener>> listeners = new HashMap<>();
+    // Chatrooms with a flush scheduled, a commit in flight, or a flush requested during a commit.
+    private final Set<String> scheduled = new HashSet<>();
+    private final Set<String> committing = new HashSet<>();
+    private final Set<String> flushAgain = new HashSet<>();
+    // Failed commits in a row per chatroom, used for the retry backoff.
+    private final Map<String, Integer> failures = new HashMap<>();
+    private boolean resumed;
+
+    private OutboundMessageQueue(Context context) {
+        pendingMessageDao = ChatDatabase.getInstance(context).pendingMessageDao();
+    }
+
+    /**
+     * Returns the shared outbound queue.
+     * @param context Any context; the application context is retained by the database.
+     * @return The process-wide OutboundMessageQueue.
+     */
+    public static synchronized OutboundMessageQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new OutboundMessageQueue(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a message, shows it as pending and schedules the chatroom's next batch.
+     * Must be called on the main thread.
+     * @param chatroomId The chatroom the message is sent to.
+     * @param userIds    The chatroom's participants.
+     * @param senderId   The ID of the current user.
+     * @param text       The message content.
+     */
+    public void enqueue(String chatroomId, List<String> userIds, String senderId, String text) {
+        PendingMessageEntity entity = new PendingMessageEntity();
+        entity.createdAt = MessageEntity.toNanos(Timestamp.now());
+        entity.messageId = newMessageId(entity.createdAt);
+        entity.chatroomId = chatroomId;
+        entity.userIds = String.join(",", userIds);
+        entity.senderId = senderId;
+        entity.message = text;
+        AppExecutors.io().execute(() -> {
+            pendingMessageDao.upsert(entity);
+            AppExecutors.main().execute(() -> {
+                notifyChatroom(chatroomId);
+                scheduleFlush(chatroomId, COALESCE_WINDOW_MILLIS);
+            });
+        });
+    }
+
+    /**
+     * Sends every message left in the queue, for example by a previous process.
+     * Only the first call has an effect.
+     */
+    public void resumePending() {
+        if (resumed) {
+            return;
+        }
+        resumed = true;
+        AppExecutors.io().execute(() -> {
+            Set<String> chatroomIds = new LinkedHashSet<>();
+            for (PendingMessageEntity entity : pendingMessageDao.getAll()) {
+                chatroomIds.add(entity.chatroomId);
+            }
+            AppExecutors.main().execute(() -> {
+                for (String chatroomId : chatroomIds) {
+                    scheduleFlush(chatroomId, 0);
+                }
+            });
+        });
+    }
+
+    /**
+     * Queues a failed message again and sends it right away.
+     * Must be called on the main thread.
+     * @param chatroomId The chatroom the message is sent to.
+     * @param messageId  The failed message.
+     */
+    public void retry(String chatroomId, String messageId) {
+        AppExecutors.io().execute(() -> {
+            pendingMessageDao.retry(messageId);
+            AppExecutors.main().execute(() -> {
+                failures.remove(chatroomId);
+                notifyChatroom(chatroomId);
+                scheduleFlush(chatroomId, 0);
+            });
+        });
+    }
+
+    /**
+     * Starts delivering a chatroom's unsent messages to a listener, beginning with the current ones.
+     * @param chatroomId The chatroom to observe.
+     * @param listener   Receives the unsent messages.
+     */
+    public void addListener(String chatroomId, Listener listener) {
+        List<Listener> chatroomListeners = listeners.get(chatroomId);
+        if (chatroomListeners == null) {
+            chatroomListeners = new ArrayList<>();
+            listeners.put(chatroomId, chatroomListeners);
+        }
+        chatroomListeners.add(listener);
+        notifyChatroom(chatroomId);
+    }
+
+    /**
+     * Stops delivering a chatroom's unsent messages to a listener.
+     * @param chatroomId The chatroom that was observed.
+     * @param listener   The listener to remove.
+     */
+    public void removeListener(String chatroomId, Listener listener) {
+        List<Listener> chatroomListeners = listeners.get(chatroomId);
+        if (chatroomListeners != null) {
+            chatroomListeners.remove(listener);
+            if (chatroomListeners.isEmpty()) {
+                listeners.remove(chatroomId);
+            }
+        }
+    }
+
+    /**
+     * Generates a message ID that sorts by creation time. Messages committed in one batch share
+     * a server timestamp, so queries break timestamp ties by document ID to keep them in order.
+     * @param createdAt Time the message was queued, in nanoseconds since the epoch.
+     * @return A 13 character base-36 timestamp followed by 8 random characters.
+     */
+    static String newMessageId(long createdAt) {
+        char[] id = new char[21];
+        long remaining = createdAt;
+        for (int i = 12; i >= 0; i--) {
+            id[i] = ID_ALPHABET.charAt((int) (remaining % 36));
+            remaining /= 36;
+        }
+        for (int i = 13; i < id.length; i++) {
+            id[i] = ID_ALPHABET.charAt(RANDOM.nextInt(ID_ALPHABET.length()));
+        }
+        return new String(id);
+    }
+
+    /**
+     * Schedules a chatroom's queued messages to be sent, unless a flush is already scheduled.
+     * @param chatroomId The chatroom to flush.
+     * @param delayMillis Delay before the flush.
+     */
+    private void scheduleFlush(String chatroomId, long delayMillis) {
+        if (!scheduled.add(chatroomId)) {
+            return;
+        }
+        flushHandler.postDelayed(() -> {
+            scheduled.remove(chatroomId);
+            flush(chatroomId);
+        }, delayMillis);
+    }
+
+    /**
+     * Commits the chatroom's queued messages in one batch, removing them from the queue once
+     * the server acknowledges it and scheduling a retry if it fails. Only one batch per
+     * chatroom is in flight at a time so messages are committed in order.
+     * @param chatroomId The chatroom to flush.
+     */
+    private void flush(String chatroomId) {
+        if (!committing.add(chatroomId)) {
+            flushAgain.add(chatroomId);
+            return;
+        }
+        AppExecutors.io().execute(() -> {
+            List<PendingMessageEntity> entities = pendingMessageDao.getSendable(chatroomId);
+            AppExecutors.main().execute(() -> {
+                if (entities.isEmpty()) {
+                    onFlushFinished(chatroomId);
+                    return;
+                }
+                List<PendingMessageEntity> batch = entities.size() > MAX_MESSAGES_PER_BATCH
+                        ? entities.subList(0, MAX_MESSAGES_PER_BATCH)
+                        : entities;
+                commit(chatroomId, batch, entities.size() > batch.size());
+            });
+        });
+    }
+
+    /**
+     * Commits one batch of messages. If the commit fails with a permanent error, or the batch
+     * has now failed {@link #MAX_ATTEMPTS} times, its messages are marked as failed and the
+     * rest of the queue is sent; otherwise the batch is retried after a backoff.
+     * @param chatroomId The chatroom the messages are sent to.
+     * @param entities   The messages, oldest first.
+     * @param hasMore    Whether more queued messages did not fit into the batch.
+     */
+    private void commit(String chatroomId, List<PendingMessageEntity> entities, boolean hasMore) {
+        List<ChatMessageModel> messages = new ArrayList<>(entities.size());
+        List<String> messageIds = new ArrayList<>(entities.size());
+        int attempts = 0;
+        for (PendingMessageEntity entity : entities) {
+            ChatMessageModel message = new ChatMessageModel(entity.message, entity.senderId, null);
+            message.setMessageId(entity.messageId);
+            messages.add(message);
+            messageIds.add(entity.messageId);
+            attempts = Math.max(attempts, entity.attempts + 1);
+        }
+        int attemptsSoFar = attempts;
+        List<String> userIds = entities.get(entities.size() - 1).getUserIdList();
+        PerfTracer.track("firestore.write.messageBatch",
+                FirebaseUtil.sendMessageBatch(chatroomId, userIds, messages).commit())
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        failures.remove(chatroomId);
+                        AppExecutors.io().execute(() -> {
+                            pendingMessageDao.delete(messageIds);
+                            AppExecutors.main().execute(() -> {
+                                notifyChatroom(chatroomId);
+                                if (hasMore) {
+                                    flushAgain.add(chatroomId);
+                                }
+                                onFlushFinished(chatroomId);
+                            });
+                        });
+                    } else if (isPermanent(task.getException()) || attemptsSoFar >= MAX_ATTEMPTS) {
+                        failures.remove(chatroomId);
+                        AppExecutors.io().execute(() -> {
+                            pendingMessageDao.markFailed(messageIds);
+                            AppExecutors.main().execute(() -> {
+                                notifyChatroom(chatroomId);
+                                if (hasMore) {
+                                    flushAgain.add(chatroomId);
+                                }
+                                onFlushFinished(chatroomId);
+                            });
+                        });
+                    } else {
+                        int failureCount = failures.containsKey(chatroomId) ? failures.get(chatroomId) + 1 : 1;
+                        failures.put(chatroomId, failureCount);
+                        long delay = Math.min(MAX_RETRY_DELAY_MILLIS,
+                                INITIAL_RETRY_DELAY_MILLIS << Math.min(failureCount - 1, 16));
+                        // Hold the commit slot until the attempt is counted, so no flush reads stale counts
+                        AppExecutors.io().execute(() -> {
+                            pendingMessageDao.incrementAttempts(messageIds);
+                            AppExecutors.main().execute(() -> {
+                                // The retry also sends messages queued meanwhile; flushing now would skip the backoff
+                                flushAgain.remove(chatroomId);
+                                onFlushFinished(chatroomId);
+                                scheduleFlush(chatroomId, delay);
+                            });
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Decides whether sending the same batch again cannot succeed.
+     * @param e The error the commit failed with.
+     * @return True if the server rejected the batch itself rather than being unreachable or busy.
+     */
+    static boolean isPermanent(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case INVALID_ARGUMENT:
+            case NOT_FOUND:
+            case ALREADY_EXISTS:
+            case PERMISSION_DENIED:
+            case FAILED_PRECONDITION:
+            case OUT_OF_RANGE:
+            case UNIMPLEMENTED:
+            case DATA_LOSS:
+            case UNAUTHENTICATED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Releases the chatroom's commit slot and runs a flush that was requested in the meantime.
+     * @param chatroomId The chatroom whose commit finished.
+     */
+    private void onFlushFinished(String chatroomId) {
+        committing.remove(chatroomId);
+        if (flushAgain.remove(chatroomId)) {
+            flush(chatroomId);
+        }
+    }
+
+    /**
+     * Reads a chatroom's unsent messages and hands them to its listeners.
+     * @param chatroomId The chatroom whose queue changed.
+     */
+    private void notifyChatroom(String chatroomId) {
+        if (!listeners.containsKey(chatroomId)) {
+            return;
+        }
+        AppExecutors.io().execute(() -> {
+            List<PendingMessageEntity> entities = pendingMessageDao.getForChatroom(chatroomId);
+            List<ChatMessageModel> pendingMessages = new ArrayList<>(entities.size());
+            for (int i = entities.size() - 1; i >= 0; i--) {
+                pendingMessages.add(entities.get(i).toModel());
+            }
+            AppExecutors.main().execute(() -> {
+                List<Listener> chatroomListeners = listeners.get(chatroomId);
+                if (chatroomListeners == null) {
+                    return;
+                }
+                for (Listener listener : new ArrayList<>(chatroomListeners)) {
+                    listener.onPendingMessagesChanged(pendingMessages);
+                }
+            });
+        });
+    }
+}
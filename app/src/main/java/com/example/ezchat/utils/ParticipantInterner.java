@@ -0,0 +1,50 @@
+package com.example.ezchat.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the user IDs appearing in one chatroom to small consecutive ints, so messages store an
+ * index instead of their own copy of the sender ID. The current user always has index
+ * {@link #CURRENT_USER}. Not thread-safe; each chatroom's message list owns one instance.
+ */
+public class ParticipantInterner {
+    public static final int CURRENT_USER = 0;
+
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final List<String> userIds = new ArrayList<>();
+
+    /**
+     * Creates an interner for a chatroom opened by the given user.
+     * @param currentUserId The ID of the signed-in user.
+     */
+    public ParticipantInterner(String currentUserId) {
+        intern(currentUserId);
+    }
+
+    /**
+     * Returns the index of a user, assigning the next free one on first use.
+     * @param userId The user ID.
+     * @return The user's index.
+     */
+    public int intern(String userId) {
+        Integer index = indices.get(userId);
+        if (index == null) {
+            index = userIds.size();
+            indices.put(userId, index);
+            userIds.add(userId);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the user ID behind an index.
+     * @param index An index returned by {@link #intern(String)}.
+     * @return The user ID.
+     */
+    public String userIdOf(int index) {
+        return userIds.get(index);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.ezchat.utils;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import com.google.android.gms.tasks.Task;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lightweight tracing for startup and hot paths.
+ * Every span shows up as a section in system traces (Perfetto, Android Studio profiler) and adds
+ * its duration to a per-operation latency histogram. The histograms can be exported as a JSON
+ * report with count, p50, p95, p99 and max for every operation.
+ *
+ * Synchronous spans must end on the thread they started on; work that completes elsewhere,
+ * such as Firestore reads, writes and first snapshots, uses async spans or {@link #track}.
+ */
+public class PerfTracer {
+    // Section names longer than this are rejected by android.os.Trace
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+    static final String REPORT_FILE_NAME = "perf-report.json";
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new TreeMap<>();
+    private static final AtomicInteger NEXT_COOKIE = new AtomicInteger();
+
+    /**
+     * Starts a span that begins and ends on the current thread.
+     * @param name The operation name, for example "ChatActivity.onCreate".
+     * @return The running span; call {@link Span#end()} on the same thread.
+     */
+    public static Span begin(String name) {
+        Trace.beginSection(sectionName(name));
+        return new Span(name, -1);
+    }
+
+    /**
+     * Starts a span that may end on another thread or in a later callback.
+     * @param name The operation name, for example "firestore.firstSnapshot.chatrooms".
+     * @return The running span.
+     */
+    public static Span beginAsync(String name) {
+        int cookie = NEXT_COOKIE.incrementAndGet();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(sectionName(name), cookie);
+        }
+        return new Span(name, cookie);
+    }
+
+    /**
+     * Records how long a task takes from now until it completes, successfully or not.
+     * @param name The operation name, for example "firestore.read.chatroom".
+     * @param task The task that was just started.
+     * @return The same task, so calls can be chained.
+     */
+    public static <T> Task<T> track(String name, Task<T> task) {
+        Span span = beginAsync(name);
+        task.addOnCompleteListener(AppExecutors.main(), t -> span.end());
+        return task;
+    }
+
+    /**
+     * Adds a duration measured elsewhere to an operation's histogram.
+     * @param name          The operation name.
+     * @param durationNanos The measured duration in nanoseconds.
+     */
+    public static void record(String name, long durationNanos) {
+        synchronized (HISTOGRAMS) {
+            LatencyHistogram histogram = HISTOGRAMS.get(name);
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                HISTOGRAMS.put(name, histogram);
+            }
+            histogram.add(durationNanos);
+        }
+    }
+
+    /**
+     * Discards all recorded durations, for example between benchmark iterations.
+     */
+    public static void reset() {
+        synchronized (HISTOGRAMS) {
+            HISTOGRAMS.clear();
+        }
+    }
+
+    /**
+     * Builds the latency report of every operation recorded so far, together with the hit and
+     * miss counters of the {@link UserCache}. Durations are in milliseconds.
+     * @return A JSON object of the form {"generatedAt": ..., "operations": {name: {count, p50, p95, p99, max}},
+     *         "userCache": {hits, misses, coalesced}}.
+     */
+    public static JSONObject toJson() {
+        JSONObject report = new JSONObject();
+        JSONObject operations = new JSONObject();
+        try {
+            report.put("generatedAt", System.currentTimeMillis());
+            synchronized (HISTOGRAMS) {
+                for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+                    operations.put(entry.getKey(), entry.getValue().toJson());
+                }
+            }
+            report.put("operations", operations);
+            UserCache userCache = UserCache.getInstance();
+            JSONObject userCacheCounters = new JSONObject();
+            userCacheCounters.put("hits", userCache.getHitCount());
+            userCacheCounters.put("misses", userCache.getMissCount());
+            userCacheCounters.put("coalesced", userCache.getCoalescedCount());
+            report.put("userCache", userCacheCounters);
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers, which durations and counters never are
+            throw new IllegalStateException(e);
+        }
+        return report;
+    }
+
+    /**
+     * Writes the latency report to the app's external files directory, where it can be pulled
+     * with adb without root, falling back to internal storage.
+     * @param context Any context.
+     * @return The written report file.
+     * @throws IOException If the report cannot be written.
+     */
+    public static File writeReport(Context context) throws IOException {
+        File directory = context.getExternalFilesDir(null);
+        if (directory == null) {
+            directory = context.getFilesDir();
+        }
+        File file = new File(directory, REPORT_FILE_NAME);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(toJson().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static String sectionName(String name) {
+        return name.length() > MAX_SECTION_NAME_LENGTH ? name.substring(0, MAX_SECTION_NAME_LENGTH) : name;
+    }
+
+    /**
+     * A running measurement. Ending a span more than once has no effect.
+     */
+    public static class Span {
+        private final String name;
+        private final int cookie;
+        private final long startNanos = SystemClock.elapsedRealtimeNanos();
+        private boolean ended;
+
+        private Span(String name, int cookie) {
+            this.name = name;
+            this.cookie = cookie;
+        }
+
+        /**
+         * Ends the span and records its duration.
+         */
+        public synchronized void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            if (cookie < 0) {
+                Trace.endSection();
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                Trace.endAsyncSection(sectionName(name), cookie);
+            }
+            record(name, SystemClock.elapsedRealtimeNanos() - startNanos);
+        }
+    }
+
+    /**
+     * Keeps the most recent durations of one operation in a ring buffer, so memory stays bounded
+     * while percentiles follow current behavior.
+     */
+    static class LatencyHistogram {
+        static final int CAPACITY = 512;
+
+        private final long[] samples = new long[CAPACITY];
+        private long count;
+        private long max;
+
+        void add(long durationNanos) {
+            samples[(int) (count % CAPACITY)] = durationNanos;
+            count++;
+            max = Math.max(max, durationNanos);
+        }
+
+        /**
+         * Returns a percentile of the retained samples using the nearest-rank method.
+         * @param percentile The percentile, between 0 and 100.
+         * @return The duration in nanoseconds, or 0 if nothing was recorded.
+         */
+        long percentile(double percentile) {
+            int size = (int) Math.min(count, CAPACITY);
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return sorted[Math.max(0, Math.min(size, rank) - 1)];
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("p50", toMillis(percentile(50)));
+            json.put("p95", toMillis(percentile(95)));
+            json.put("p99", toMillis(percentile(99)));
+            json.put("max", toMillis(max));
+            return json;
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.ezchat.utils;
+
+import android.util.LruCache;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.example.ezchat.model.MessageItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Size-bounded cache of message texts measured ahead of time, keyed by message ID.
+ * Measuring glyphs is the expensive part of laying out text, so it is done on a background
+ * executor as pages of messages arrive, and binding a bubble only attaches the measured text.
+ *
+ * A measurement depends on the text style but not on the width it is laid out at; line breaking
+ * at the bubble's width reuses the cached measurements. One cache therefore serves all bubbles
+ * with the same style, whatever their width.
+ *
+ * Each text is measured at most once at a time: a bind that needs a text already queued by
+ * {@link #prefetch(List)} or by an earlier bind waits for that measurement instead of queueing
+ * another one.
+ */
+public class PrecomputedTextCache {
+    private static final int MAX_MESSAGES = 500;
+
+    private final PrecomputedTextCompat.Params params;
+    private final Executor executor;
+    private final LruCache<String, Entry> cache = new LruCache<>(MAX_MESSAGES);
+    // Measurements queued or running, by message ID; guarded by this
+    private final Map<String, Measurement> inFlight = new HashMap<>();
+
+    /**
+     * Creates a cache for texts of one style.
+     * @param params   The text style, as read from the TextViews the texts are shown in.
+     * @param executor The executor measuring texts.
+     */
+    public PrecomputedTextCache(PrecomputedTextCompat.Params params, Executor executor) {
+        this.params = params;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the style the texts are measured for.
+     * @return The text metrics parameters.
+     */
+    public PrecomputedTextCompat.Params getParams() {
+        return params;
+    }
+
+    /**
+     * Returns a message's measured text if it is ready.
+     * @param messageId The message ID.
+     * @param text      The message text, to detect a different text under the same ID.
+     * @return The measured text, or null if it has not been measured yet.
+     */
+    public PrecomputedTextCompat getIfReady(String messageId, String text) {
+        Entry entry = cache.get(messageId);
+        return entry != null && entry.text.equals(text) ? entry.precomputed : null;
+    }
+
+    /**
+     * Returns a future of a message's measured text, measuring it on the executor unless it is
+     * cached or already being measured.
+     * @param messageId The message ID.
+     * @param text      The message text.
+     * @return A future of the measured text, for {@code AppCompatTextView.setTextFuture}.
+     */
+    public synchronized Future<PrecomputedTextCompat> get(String messageId, String text) {
+        Measurement measurement = inFlight.get(messageId);
+        if (measurement != null && measurement.text.equals(text)) {
+            return measurement;
+        }
+        measurement = register(messageId, text);
+        if (getIfReady(messageId, text) != null) {
+            // Finished in the meantime; completing the future here does not measure again
+            measurement.run();
+        } else {
+            executor.execute(measurement);
+        }
+        return measurement;
+    }
+
+    /**
+     * Measures the texts of messages that are neither cached nor being measured yet, in one
+     * background task. Binds of those messages wait for this task instead of queueing their own.
+     * @param messages The messages about to be shown, in the order they should be measured.
+     */
+    public synchronized void prefetch(List<MessageItem> messages) {
+        List<Measurement> missing = new ArrayList<>();
+        for (MessageItem message : messages) {
+            String messageId = message.getMessageId();
+            Measurement measurement = inFlight.get(messageId);
+            if ((measurement == null || !measurement.text.equals(message.getMessage()))
+                    && getIfReady(messageId, message.getMessage()) == null) {
+                missing.add(register(messageId, message.getMessage()));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> {
+            for (Measurement measurement : missing) {
+                // Does nothing if the measurement already ran
+                measurement.run();
+            }
+        });
+    }
+
+    private Measurement register(String messageId, String text) {
+        Measurement measurement = new Measurement(messageId, text);
+        inFlight.put(messageId, measurement);
+        return measurement;
+    }
+
+    private synchronized void finished(Measurement measurement) {
+        if (inFlight.get(measurement.messageId) == measurement) {
+            inFlight.remove(measurement.messageId);
+        }
+    }
+
+    private PrecomputedTextCompat measure(String messageId, String text) {
+        PrecomputedTextCompat precomputed = getIfReady(messageId, text);
+        if (precomputed == null) {
+            precomputed = PrecomputedTextCompat.create(text, params);
+            cache.put(messageId, new Entry(text, precomputed));
+        }
+        return precomputed;
+    }
+
+    /**
+     * Measurement of one message's text, removed from the in-flight measurements once done.
+     */
+    private class Measurement extends FutureTask<PrecomputedTextCompat> {
+        final String messageId;
+        final String text;
+
+        Measurement(String messageId, String text) {
+            super(() -> measure(messageId, text));
+            this.messageId = messageId;
+            this.text = text;
+        }
+
+        @Override
+        protected void done() {
+            finished(this);
+        }
+    }
+
+    private static class Entry {
+        // The text that was measured, compared instead of the measured copy to avoid a conversion
+        final String text;
+        final PrecomputedTextCompat precomputed;
+
+        Entry(String text, PrecomputedTextCompat precomputed) {
+            this.text = text;
+            this.precomputed = precomputed;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ezchat.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefix tree mapping search keys to IDs. Every node keeps the IDs of all keys below it,
+ * so a lookup costs one step per character of the prefix regardless of how many keys are stored.
+ */
+public class PrefixTrie {
+    private final Node root = new Node();
+    private final Map<String, String> keysById = new HashMap<>();
+
+    /**
+     * Stores an ID under a key, replacing the key it was previously stored under.
+     * @param id  The ID to store.
+     * @param key The key the ID can be found by.
+     */
+    public void put(String id, String key) {
+        String previous = keysById.get(id);
+        if (key.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            remove(id);
+        }
+        keysById.put(id, key);
+        Node node = root;
+        node.ids.add(id);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+            node.ids.add(id);
+        }
+    }
+
+    /**
+     * Removes an ID and prunes nodes that no longer lead to any key.
+     * @param id The ID to remove.
+     */
+    public void remove(String id) {
+        String key = keysById.remove(id);
+        if (key == null) {
+            return;
+        }
+        Node node = root;
+        node.ids.remove(id);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.children.get(key.charAt(i));
+            child.ids.remove(id);
+            if (child.ids.isEmpty()) {
+                node.children.remove(key.charAt(i));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Returns the IDs of all keys starting with the given prefix.
+     * @param prefix The prefix to look up.
+     * @return An unmodifiable view of the matching IDs, empty if none match.
+     */
+    public Set<String> find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(node.ids);
+    }
+
+    /**
+     * Returns the number of IDs stored.
+     * @return The number of IDs.
+     */
+    public int size() {
+        return keysById.size();
+    }
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        final Set<String> ids = new HashSet<>();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ezchat.utils;
+
+import android.app.Activity;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Measures cold start as the time from process start until the first row of the recent chats
+ * list is drawn, and checks it against a budget. Only the first report of a process counts,
+ * so warm starts and later list updates are ignored.
+ */
+public class StartupMetrics {
+    private static final String TAG = "StartupMetrics";
+    // Time-to-first-chat-row budget for a cold start
+    public static final long FIRST_CHAT_ROW_BUDGET_MILLIS = 1500;
+
+    private static boolean reported;
+    private static long firstChatRowMillis = -1;
+
+    /**
+     * Records that the recent chats list has been drawn with its first rows, logs the elapsed
+     * time since process start and tells the system the activity is fully drawn.
+     * Must be called on the main thread.
+     * @param activity The activity showing the list.
+     */
+    public static void onFirstChatRowDrawn(Activity activity) {
+        if (reported) {
+            return;
+        }
+        reported = true;
+        firstChatRowMillis = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+        if (firstChatRowMillis > FIRST_CHAT_ROW_BUDGET_MILLIS) {
+            Log.w(TAG, "Time to first chat row " + firstChatRowMillis + " ms exceeds budget of "
+                    + FIRST_CHAT_ROW_BUDGET_MILLIS + " ms");
+        } else {
+            Log.i(TAG, "Time to first chat row " + firstChatRowMillis + " ms");
+        }
+        activity.reportFullyDrawn();
+    }
+
+    /**
+     * Returns the measured time to the first chat row.
+     * @return Milliseconds since process start, or -1 if no row has been drawn yet.
+     */
+    public static long getFirstChatRowMillis() {
+        return firstChatRowMillis;
+    }
+
+    /**
+     * Returns whether the measured start fit into the budget.
+     * @return True if the first chat row was drawn within the budget.
+     */
+    public static boolean isWithinBudget() {
+        return firstChatRowMillis >= 0 && firstChatRowMillis <= FIRST_CHAT_ROW_BUDGET_MILLIS;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.ezchat.utils;
+
+import com.google.firebase.Timestamp;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Formats message timestamps for chat rows relative to today: the time of day for today,
+ * "Yesterday", the weekday within the last week, and a short date before that.
+ * Also formats the times shown in message bubbles and the labels of date separators.
+ * "Today" and "Yesterday" are replaced with the app's localized strings at startup, see
+ * {@link #setDayLabels(String, String)}.
+ * The java.time formatters are immutable and built once, and labels are memoized per minute,
+ * so binding a row whose minute was formatted before allocates nothing. The memoized labels
+ * are dropped when the day changes, since relative labels depend on it.
+ */
+public class TimeFormatter {
+    // Labels used until setDayLabels is called
+    static final String TODAY = "Today";
+    static final String YESTERDAY = "Yesterday";
+    // Number of memoized minutes; a power of two so the slot is a bit mask of the minute
+    private static final int CACHE_SIZE = 256;
+
+    private static final TimeFormatter INSTANCE = new TimeFormatter(Clock.systemDefaultZone(), Locale.getDefault());
+
+    private final Clock clock;
+    private final ZoneId zone;
+    private final DateTimeFormatter timeFormatter;
+    private final DateTimeFormatter weekdayFormatter;
+    private final DateTimeFormatter dateFormatter;
+    private final DateTimeFormatter longDateFormatter;
+    private String todayLabel = TODAY;
+    private String yesterdayLabel = YESTERDAY;
+
+    // Direct-mapped cache of labels by epoch minute
+    private final long[] cachedMinutes = new long[CACHE_SIZE];
+    private final String[] cachedLabels = new String[CACHE_SIZE];
+    // Time of day labels by epoch minute; these do not depend on the current day
+    private final long[] cachedTimeMinutes = new long[CACHE_SIZE];
+    private final String[] cachedTimes = new String[CACHE_SIZE];
+
+    // Day boundaries in epoch seconds, recomputed when the current time leaves today
+    private long weekStart;
+    private long yesterdayStart;
+    private long todayStart;
+    private long tomorrowStart;
+
+    /**
+     * Creates a formatter for the given clock and locale.
+     * @param clock  The clock deciding what "today" is; its zone is used for all labels.
+     * @param locale The locale of weekday names and dates.
+     */
+    TimeFormatter(Clock clock, Locale locale) {
+        this.clock = clock;
+        this.zone = clock.getZone();
+        timeFormatter = DateTimeFormatter.ofPattern("HH:mm", locale);
+        weekdayFormatter = DateTimeFormatter.ofPattern("EEEE", locale);
+        dateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).withLocale(locale);
+        longDateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(locale);
+    }
+
+    /**
+     * Returns the shared formatter, using the device's time zone and locale.
+     * @return The process-wide TimeFormatter.
+     */
+    public static TimeFormatter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the labels of the current and the previous day, resolved from string resources
+     * so they follow the app's language. Memoized labels are dropped.
+     * @param today     The label for today, e.g. "Today".
+     * @param yesterday The label for yesterday, e.g. "Yesterday".
+     */
+    public synchronized void setDayLabels(String today, String yesterday) {
+        todayLabel = today;
+        yesterdayLabel = yesterday;
+        Arrays.fill(cachedLabels, null);
+    }
+
+    /**
+     * Formats a timestamp relative to today.
+     * @param timestamp The timestamp to format, or null for a server timestamp not written yet.
+     * @return The label, or an empty string for a null timestamp.
+     */
+    public synchronized String formatRelative(Timestamp timestamp) {
+        if (timestamp == null) {
+            return "";
+        }
+        refreshDay();
+        long seconds = timestamp.getSeconds();
+        long minute = Math.floorDiv(seconds, 60);
+        int slot = (int) (minute & (CACHE_SIZE - 1));
+        if (cachedLabels[slot] != null && cachedMinutes[slot] == minute) {
+            return cachedLabels[slot];
+        }
+        String label = computeLabel(seconds);
+        cachedMinutes[slot] = minute;
+        cachedLabels[slot] = label;
+        return label;
+    }
+
+    /**
+     * Formats the time of day of a message, for example "14:05".
+     * @param epochSeconds The message time in seconds since the epoch.
+     * @return The time of day in the device's time zone.
+     */
+    public synchronized String formatTimeOfDay(long epochSeconds) {
+        long minute = Math.floorDiv(epochSeconds, 60);
+        int slot = (int) (minute & (CACHE_SIZE - 1));
+        if (cachedTimes[slot] != null && cachedTimeMinutes[slot] == minute) {
+            return cachedTimes[slot];
+        }
+        String label = timeFormatter.format(Instant.ofEpochSecond(epochSeconds).atZone(zone));
+        cachedTimeMinutes[slot] = minute;
+        cachedTimes[slot] = label;
+        return label;
+    }
+
+    /**
+     * Returns the local day a moment falls on, used to group messages by day.
+     * @param epochSeconds The moment in seconds since the epoch.
+     * @return The day as a count of days since 1970-01-01 in the device's time zone.
+     */
+    public long epochDay(long epochSeconds) {
+        return Instant.ofEpochSecond(epochSeconds).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Formats the label of a date separator: "Today", "Yesterday", the weekday within the
+     * last week, and the full date before that.
+     * @param epochDay The day as returned by {@link #epochDay(long)}.
+     * @return The label.
+     */
+    public synchronized String formatDay(long epochDay) {
+        refreshDay();
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        long dayStart = day.atStartOfDay(zone).toEpochSecond();
+        if (dayStart == todayStart) {
+            return todayLabel;
+        }
+        if (dayStart == yesterdayStart) {
+            return yesterdayLabel;
+        }
+        if (dayStart >= weekStart && dayStart < todayStart) {
+            return weekdayFormatter.format(day);
+        }
+        return longDateFormatter.format(day);
+    }
+
+    /**
+     * Recomputes the day boundaries and drops memoized labels once the current time is no longer today.
+     */
+    private void refreshDay() {
+        long now = Math.floorDiv(clock.millis(), 1000);
+        if (now >= todayStart && now < tomorrowStart) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        weekStart = today.minusDays(6).atStartOfDay(zone).toEpochSecond();
+        yesterdayStart = today.minusDays(1).atStartOfDay(zone).toEpochSecond();
+        todayStart = today.atStartOfDay(zone).toEpochSecond();
+        tomorrowStart = today.plusDays(1).atStartOfDay(zone).toEpochSecond();
+        Arrays.fill(cachedLabels, null);
+    }
+
+    private String computeLabel(long seconds) {
+        ZonedDateTime time = Instant.ofEpochSecond(seconds).atZone(zone);
+        if (seconds >= tomorrowStart || seconds < weekStart) {
+            return dateFormatter.format(time);
+        }
+        if (seconds >= todayStart) {
+            return timeFormatter.format(time);
+        }
+        if (seconds >= yesterdayStart) {
+            return yesterdayLabel;
+        }
+        return weekdayFormatter.format(time);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.ezchat.utils;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import com.example.ezchat.mapper.Mappers;
+import com.example.ezchat.model.UserModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Process-wide, size-bounded cache of user profiles.
+ * Profiles are refreshed from Firestore once they are older than the TTL, and concurrent
+ * lookups for the same user share a single in-flight read.
+ * Profiles are copied on the way in and out, so callers may change what they get back
+ * without affecting other screens.
+ */
+public class UserCache {
+    private static final int MAX_USERS = 200;
+    private static final long TTL_MILLIS = 5 * 60 * 1000;
+
+    private static final UserCache INSTANCE = new UserCache();
+
+    private final LruCache<String, Entry> cache = new LruCache<>(MAX_USERS);
+    private final Map<String, Task<UserModel>> inFlight = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+    private long coalescedCount;
+
+    /**
+     * Returns the shared profile cache.
+     * @return The process-wide UserCache.
+     */
+    public static UserCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a user's profile, reading it from Firestore only if it is not cached or has expired.
+     * @param userId The ID of the user to look up.
+     * @return A task resolving to the profile, or to null if the user document does not exist.
+     */
+    public synchronized Task<UserModel> get(String userId) {
+        Entry entry = cache.get(userId);
+        if (entry != null && !entry.isExpired()) {
+            hitCount++;
+            return Tasks.forResult(new UserModel(entry.user));
+        }
+        Task<UserModel> pending = inFlight.get(userId);
+        if (pending != null) {
+            coalescedCount++;
+            return pending.continueWith(UserCache::copyResult);
+        }
+        missCount++;
+        Task<UserModel> task = PerfTracer.track("firestore.read.user",
+                FirebaseUtil.allUserCollectionReference().document(userId).get())
+                .continueWith(AppExecutors.compute(), t -> Mappers.toObject(t.getResult(), UserModel.class));
+        inFlight.put(userId, task);
+        task.addOnCompleteListener(t -> {
+            synchronized (UserCache.this) {
+                inFlight.remove(userId);
+                if (t.isSuccessful() && t.getResult() != null) {
+                    cache.put(userId, new Entry(new UserModel(t.getResult())));
+                }
+            }
+        });
+        return task.continueWith(UserCache::copyResult);
+    }
+
+    /**
+     * Returns a cached profile without touching the network, even if it has expired.
+     * @param userId The ID of the user to look up.
+     * @return The cached profile, or null if the user is not cached.
+     */
+    public synchronized UserModel peek(String userId) {
+        Entry entry = cache.get(userId);
+        return entry != null ? new UserModel(entry.user) : null;
+    }
+
+    /**
+     * Stores a profile that was just written or read elsewhere.
+     * @param user The profile to cache.
+     */
+    public synchronized void put(UserModel user) {
+        if (user != null && user.getUserId() != null) {
+            cache.put(user.getUserId(), new Entry(new UserModel(user)));
+        }
+    }
+
+    /**
+     * Removes a user's profile so the next lookup reads it from Firestore.
+     * @param userId The ID of the user to evict.
+     */
+    public synchronized void invalidate(String userId) {
+        cache.remove(userId);
+    }
+
+    /**
+     * Returns how many lookups were answered from a fresh cached profile.
+     * @return The number of cache hits since the process started.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns how many lookups started a Firestore read.
+     * @return The number of cache misses since the process started.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns how many lookups joined a Firestore read that was already in flight.
+     * @return The number of coalesced lookups since the process started.
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Gives each caller of a shared read its own copy of the profile.
+     * @param task The completed read.
+     * @return A copy of the profile, or null if the user does not exist.
+     */
+    private static UserModel copyResult(Task<UserModel> task) {
+        UserModel user = task.getResult();
+        return user != null ? new UserModel(user) : null;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "UserCache[size=%d, hits=%d, misses=%d, coalesced=%d]",
+                cache.size(), hitCount, missCount, coalescedCount);
+    }
+
+    /**
+     * A cached profile together with the time it was stored.
+     */
+    private static class Entry {
+        final UserModel user;
+        final long storedAt;
+
+        Entry(UserModel user) {
+            this.user = user;
+            this.storedAt = SystemClock.elapsedRealtime();
+        }
+
+        boolean isExpired() {
+            return SystemClock.elapsedRealtime() - storedAt > TTL_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ezchat.adapter;
+
+import com.example.ezchat.model.MessageItem;
+import com.example.ezchat.utils.TimeFormatter;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the rows built by {@link ChatRecyclerAdapter}.
+ */
+public class ChatRecyclerAdapterTest {
+    private static final ZonedDateTime DAY = ZonedDateTime.of(2024, 3, 13, 12, 0, 0, 0, ZoneId.systemDefault());
+
+    private static MessageItem message(String id, int sender, ZonedDateTime time) {
+        long nanos = time.toEpochSecond() * 1_000_000_000L;
+        return new MessageItem(id, id.hashCode(), id, sender, nanos, sender == 0, false, false);
+    }
+
+    @Test
+    public void consecutiveMessagesOfOneSenderAreGrouped() {
+        List<ChatRecyclerAdapter.ChatRow> rows = ChatRecyclerAdapter.toRows(Arrays.asList(
+                message("c", 0, DAY.plusMinutes(2)),
+                message("b", 0, DAY.plusMinutes(1)),
+                message("a", 1, DAY)), TimeFormatter.getInstance());
+
+        assertEquals(4, rows.size());
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_SENT_GROUPED, rows.get(0).viewType);
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_SENT, rows.get(1).viewType);
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_RECEIVED, rows.get(2).viewType);
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_DATE_SEPARATOR, rows.get(3).viewType);
+    }
+
+    @Test
+    public void messagesFarApartAreNotGrouped() {
+        List<ChatRecyclerAdapter.ChatRow> rows = ChatRecyclerAdapter.toRows(Arrays.asList(
+                message("b", 1, DAY.plusHours(1)),
+                message("a", 1, DAY)), TimeFormatter.getInstance());
+
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_RECEIVED, rows.get(0).viewType);
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_RECEIVED, rows.get(1).viewType);
+    }
+
+    @Test
+    public void separatorFollowsTheOldestMessageOfEachDay() {
+        List<ChatRecyclerAdapter.ChatRow> rows = ChatRecyclerAdapter.toRows(Arrays.asList(
+                message("b", 0, DAY.plusDays(1).withHour(0).withMinute(1)),
+                message("a", 0, DAY.withHour(23).withMinute(59)),
+                message("old", 0, DAY.minusDays(1))), TimeFormatter.getInstance());
+
+        assertEquals(6, rows.size());
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_SENT, rows.get(0).viewType);
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_DATE_SEPARATOR, rows.get(1).viewType);
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_SENT, rows.get(2).viewType);
+        assertEquals(ChatRecyclerAdapter.VIEW_TYPE_DATE_SEPARATOR, rows.get(3).viewType);
+        assertNotEquals(rows.get(1).id, rows.get(3).id);
+    }
+}
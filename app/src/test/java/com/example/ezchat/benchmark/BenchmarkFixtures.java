@@ -0,0 +1,55 @@
+package com.example.ezchat.benchmark;
+
+import com.google.firebase.Timestamp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Document data shaped like what Firestore hands to the mappers, so the benchmarks measure
+ * mapping only and not the network or the local cache.
+ */
+class BenchmarkFixtures {
+    static final String CURRENT_USER_ID = "Zq8cJ1o0yQhHq2oTn3b7cUmX0VJ2";
+    static final String OTHER_USER_ID = "a3Kf0pLr9sTuVwXyZ1b2C3d4E5f6";
+
+    static Map<String, Object> chatroomData() {
+        Map<String, Object> names = new HashMap<>();
+        names.put(CURRENT_USER_ID, "alice");
+        names.put(OTHER_USER_ID, "bob");
+        Map<String, Object> picUrls = new HashMap<>();
+        picUrls.put(CURRENT_USER_ID, "https://firebasestorage.googleapis.com/v0/b/app/o/profile_pic%2Falice");
+        picUrls.put(OTHER_USER_ID, "https://firebasestorage.googleapis.com/v0/b/app/o/profile_pic%2Fbob");
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("chatroomId", OTHER_USER_ID + "_" + CURRENT_USER_ID);
+        data.put("userIds", Arrays.asList(CURRENT_USER_ID, OTHER_USER_ID));
+        data.put("lastMessageTimestamp", new Timestamp(1_700_000_000L, 123_000_000));
+        data.put("lastMessageSenderId", OTHER_USER_ID);
+        data.put("lastMessage", "See you tomorrow at the station");
+        data.put("participantNames", names);
+        data.put("participantPicUrls", picUrls);
+        return data;
+    }
+
+    static Map<String, Object> userData() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("phone", "+15555550123");
+        data.put("username", "Alice");
+        data.put("searchKey", "alice");
+        data.put("createdTimestamp", new Timestamp(1_650_000_000L, 0));
+        data.put("userId", CURRENT_USER_ID);
+        data.put("fcmToken", "fcm-token-0123456789abcdefghijklmnopqrstuvwxyz");
+        data.put("profilePicUrl", "https://firebasestorage.googleapis.com/v0/b/app/o/profile_pic%2Falice");
+        return data;
+    }
+
+    static Map<String, Object> messageData() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("message", "Running ten minutes late, save me a seat");
+        data.put("senderId", OTHER_USER_ID);
+        data.put("timestamp", new Timestamp(1_700_000_123L, 456_000_000));
+        return data;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ezchat.benchmark;
+
+import com.example.ezchat.utils.FirebaseUtil;
+import com.example.ezchat.utils.TimeFormatter;
+import com.google.firebase.Timestamp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Helpers called on every row bind of the chat lists.
+ */
+@State(Scope.Thread)
+public class ChatUtilBenchmark {
+    // More distinct minutes than TimeFormatter memoizes, so every call formats
+    private static final int DISTINCT_MINUTES = 4096;
+
+    private Timestamp timestamp;
+    private Timestamp[] distinctMinutes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        timestamp = new Timestamp(System.currentTimeMillis() / 1000 - 3600, 0);
+        distinctMinutes = new Timestamp[DISTINCT_MINUTES];
+        for (int i = 0; i < DISTINCT_MINUTES; i++) {
+            distinctMinutes[i] = new Timestamp(timestamp.getSeconds() - i * 60L, 0);
+        }
+    }
+
+    /**
+     * A row bind for a minute that was formatted before.
+     */
+    @Benchmark
+    public String timestampToString() {
+        return FirebaseUtil.timestampToString(timestamp);
+    }
+
+    /**
+     * A row bind for a minute that was not formatted before.
+     */
+    @Benchmark
+    public String formatRelativeUncached() {
+        next = (next + 1) % DISTINCT_MINUTES;
+        return TimeFormatter.getInstance().formatRelative(distinctMinutes[next]);
+    }
+
+    @Benchmark
+    public String getChatroomId() {
+        return FirebaseUtil.getChatroomId(BenchmarkFixtures.CURRENT_USER_ID, BenchmarkFixtures.OTHER_USER_ID);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ezchat.benchmark;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the JMH microbenchmarks in this package on the plain JVM, so CI can track them without a device.
+ * Skipped unless enabled, because a run takes minutes:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests '*MicrobenchmarkSuite' -Pezchat.jmh=true
+ *
+ * Every benchmark reports its average time and, through the GC profiler, the bytes it allocates
+ * per operation. Results are written as JSON for dashboards and as a properties file that a
+ * later run can use as its baseline with -Pezchat.jmh.baseline=path/to/results.properties.
+ * A benchmark that becomes slower or allocates more than the tolerance allows fails the run.
+ */
+public class MicrobenchmarkSuite {
+    // Allowed slowdown against the baseline; timings on shared CI machines are noisy
+    private static final double TIME_TOLERANCE = 0.25;
+    // Allowed allocation growth against the baseline; allocation is close to deterministic
+    private static final double ALLOCATION_TOLERANCE = 0.10;
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+
+    @Test
+    public void runMicrobenchmarks() throws RunnerException, IOException {
+        Assume.assumeTrue("Microbenchmarks are disabled", Boolean.getBoolean("ezchat.jmh"));
+        File reportDir = new File(System.getProperty("ezchat.jmh.reportDir", "build/reports/jmh"));
+        if (!reportDir.isDirectory() && !reportDir.mkdirs()) {
+            throw new IOException("Cannot create " + reportDir);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(getClass().getPackage().getName() + "\\." + System.getProperty("ezchat.jmh.include", ".*"))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(reportDir, "results.json").getPath())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Properties current = toProperties(results);
+        try (OutputStream out = new FileOutputStream(new File(reportDir, "results.properties"))) {
+            current.store(out, "JMH results: <benchmark>.time in ns/op, <benchmark>.alloc in bytes/op");
+        }
+
+        String baselinePath = System.getProperty("ezchat.jmh.baseline", "");
+        if (!baselinePath.isEmpty()) {
+            List<String> regressions = compare(load(new File(baselinePath)), current);
+            assertTrue("Microbenchmark regressions:\n" + String.join("\n", regressions), regressions.isEmpty());
+        }
+    }
+
+    private static Properties toProperties(Collection<RunResult> results) {
+        Properties properties = new Properties();
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark();
+            properties.setProperty(name + ".time", Double.toString(result.getPrimaryResult().getScore()));
+            for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                    properties.setProperty(name + ".alloc", Double.toString(secondary.getValue().getScore()));
+                }
+            }
+        }
+        return properties;
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    /**
+     * Lists the benchmarks whose time or allocation grew beyond the tolerance.
+     * Benchmarks missing from the baseline are new and are not compared.
+     */
+    static List<String> compare(Properties baseline, Properties current) {
+        List<String> regressions = new ArrayList<>();
+        for (String key : current.stringPropertyNames()) {
+            String previous = baseline.getProperty(key);
+            if (previous == null) {
+                continue;
+            }
+            double before = Double.parseDouble(previous);
+            double after = Double.parseDouble(current.getProperty(key));
+            double limit = key.endsWith(".alloc")
+                    ? before * (1 + ALLOCATION_TOLERANCE) + ALLOCATION_SLACK_BYTES
+                    : before * (1 + TIME_TOLERANCE);
+            if (after > limit) {
+                regressions.add(String.format("%s: %.1f -> %.1f (limit %.1f)", key, before, after, limit));
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ezchat.benchmark;
+
+import com.example.ezchat.mapper.Mappers;
+import com.example.ezchat.mapper.ModelMapper;
+import com.example.ezchat.model.ChatMessageModel;
+import com.example.ezchat.model.ChatroomModel;
+import com.example.ezchat.model.UserModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * Mapping done for every chatroom, user and message that is read or written, through the
+ * mappers generated by the mapper processor. The reflective DocumentSnapshot.toObject() path
+ * they replace needs real snapshots, so it is only measured on a device.
+ */
+@State(Scope.Thread)
+public class ModelMappingBenchmark {
+    private Map<String, Object> chatroomData;
+    private Map<String, Object> userData;
+    private Map<String, Object> messageData;
+    private ChatroomModel chatroom;
+    private ModelMapper<ChatroomModel> chatroomMapper;
+    private ModelMapper<UserModel> userMapper;
+    private ModelMapper<ChatMessageModel> messageMapper;
+
+    @Setup
+    public void setUp() {
+        chatroomMapper = Mappers.get(ChatroomModel.class);
+        userMapper = Mappers.get(UserModel.class);
+        messageMapper = Mappers.get(ChatMessageModel.class);
+        chatroomData = BenchmarkFixtures.chatroomData();
+        userData = BenchmarkFixtures.userData();
+        messageData = BenchmarkFixtures.messageData();
+        chatroom = chatroomMapper.fromMap(chatroomData);
+    }
+
+    @Benchmark
+    public ChatroomModel chatroomGenerated() {
+        return chatroomMapper.fromMap(chatroomData);
+    }
+
+    @Benchmark
+    public UserModel userGenerated() {
+        return userMapper.fromMap(userData);
+    }
+
+    @Benchmark
+    public ChatMessageModel messageGenerated() {
+        return messageMapper.fromMap(messageData);
+    }
+
+    @Benchmark
+    public Object chatroomToMapGenerated() {
+        return chatroomMapper.toMap(chatroom);
+    }
+}
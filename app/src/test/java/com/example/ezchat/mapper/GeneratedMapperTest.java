@@ -0,0 +1,104 @@
+package com.example.ezchat.mapper;
+
+import com.example.ezchat.model.ChatMessageModel;
+import com.example.ezchat.model.ChatroomModel;
+import com.example.ezchat.model.UserModel;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FieldValue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests checking that the generated mappers read and write the fields Firestore's
+ * reflective mapper would.
+ */
+public class GeneratedMapperTest {
+    @Test
+    public void annotatedModelsUseGeneratedMappers() {
+        assertNotNull(Mappers.get(ChatroomModel.class));
+        assertNotNull(Mappers.get(UserModel.class));
+        assertNotNull(Mappers.get(ChatMessageModel.class));
+    }
+
+    @Test
+    public void modelsWithoutGeneratedMappersAreReportedToWriters() {
+        assertNull(Mappers.get(GeneratedMapperTest.class));
+        try {
+            Mappers.toMap(this);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void chatroomIsReadFieldByField() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("chatroomId", "a_b");
+        data.put("userIds", Arrays.asList("a", "b"));
+        data.put("lastMessageTimestamp", new Timestamp(1_700_000_000L, 0));
+        data.put("lastMessageSenderId", "a");
+        data.put("lastMessage", "hi");
+        data.put("participantNames", Collections.singletonMap("a", "alice"));
+
+        ChatroomModel chatroom = Mappers.fromMap(data, ChatroomModel.class);
+
+        assertEquals("a_b", chatroom.getChatroomId());
+        assertEquals(Arrays.asList("a", "b"), chatroom.getUserIds());
+        assertEquals(new Timestamp(1_700_000_000L, 0), chatroom.getLastMessageTimestamp());
+        assertEquals("a", chatroom.getLastMessageSenderId());
+        assertEquals("hi", chatroom.getLastMessage());
+        assertEquals(Collections.singletonMap("a", "alice"), chatroom.getParticipantNames());
+        assertTrue(chatroom.getParticipantPicUrls().isEmpty());
+    }
+
+    @Test
+    public void userRoundTrips() {
+        UserModel user = new UserModel("+15555550123", "Alice", new Timestamp(1_650_000_000L, 0), "a");
+        user.setProfilePicUrl("https://example.com/alice");
+
+        UserModel copy = Mappers.fromMap(Mappers.toMap(user), UserModel.class);
+
+        assertEquals(user.getPhone(), copy.getPhone());
+        assertEquals(user.getUsername(), copy.getUsername());
+        assertEquals("alice", copy.getSearchKey());
+        assertEquals(user.getCreatedTimestamp(), copy.getCreatedTimestamp());
+        assertEquals(user.getUserId(), copy.getUserId());
+        assertNull(copy.getFcmToken());
+        assertEquals(user.getProfilePicUrl(), copy.getProfilePicUrl());
+    }
+
+    @Test
+    public void messageLeavesExcludedPropertiesOutAndRequestsServerTimestamp() {
+        ChatMessageModel message = new ChatMessageModel("hi", "a", null);
+        message.setMessageId("id");
+        message.setPending(true);
+
+        Map<String, Object> data = Mappers.toMap(message);
+
+        assertEquals(3, data.size());
+        assertEquals("hi", data.get("message"));
+        assertEquals("a", data.get("senderId"));
+        assertTrue(data.get("timestamp") instanceof FieldValue);
+    }
+
+    @Test
+    public void unexpectedTypesAreReportedSoDocumentsCanFallBack() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("message", "hi");
+        data.put("senderId", 42L);
+
+        // Mappers.toObject() then reads the document with DocumentSnapshot.toObject()
+        try {
+            Mappers.fromMap(data, ChatMessageModel.class);
+            fail();
+        } catch (ClassCastException expected) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ezchat.repository;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ConflatingMapper}.
+ */
+public class ConflatingMapperTest {
+    private final Queue<Runnable> background = new ArrayDeque<>();
+    private final Queue<Runnable> main = new ArrayDeque<>();
+    private final List<String> mapped = new ArrayList<>();
+    private final List<String> received = new ArrayList<>();
+    private final List<RuntimeException> errors = new ArrayList<>();
+    private final ConflatingMapper<Integer, String> mapper = new ConflatingMapper<>(background::add, main::add,
+            snapshot -> {
+                if (snapshot < 0) {
+                    throw new IllegalArgumentException("Negative snapshot");
+                }
+                mapped.add("#" + snapshot);
+                return "#" + snapshot;
+            }, received::add, errors::add);
+
+    private void runAll() {
+        while (!background.isEmpty() || !main.isEmpty()) {
+            while (!background.isEmpty()) {
+                background.poll().run();
+            }
+            while (!main.isEmpty()) {
+                main.poll().run();
+            }
+        }
+    }
+
+    @Test
+    public void burstIsConflatedToFirstAndLast() {
+        for (int i = 1; i <= 5; i++) {
+            mapper.submit(i);
+        }
+        runAll();
+
+        assertEquals(Arrays.asList("#1", "#5"), mapped);
+        assertEquals(Arrays.asList("#1", "#5"), received);
+    }
+
+    @Test
+    public void onlyOneSnapshotIsMappedAtATime() {
+        mapper.submit(1);
+        mapper.submit(2);
+
+        assertEquals(1, background.size());
+    }
+
+    @Test
+    public void cancelDropsPendingResults() {
+        mapper.submit(1);
+        mapper.submit(2);
+        mapper.cancel();
+        runAll();
+
+        assertTrue(received.isEmpty());
+
+        mapper.submit(3);
+        runAll();
+        assertEquals(Arrays.asList("#3"), received);
+    }
+
+    @Test
+    public void failedMappingIsReportedAndLaterSnapshotsStillMapped() {
+        mapper.submit(-1);
+        mapper.submit(2);
+        runAll();
+
+        assertEquals(1, errors.size());
+        assertEquals(Arrays.asList("#2"), received);
+
+        mapper.submit(3);
+        runAll();
+        assertEquals(Arrays.asList("#2", "#3"), received);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ezchat.repository;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SyncStatusTracker} and {@link SyncStatus}.
+ */
+public class SyncStatusTrackerTest {
+
+    @Test
+    public void cachedSnapshotsAreNotOfflineBeforeTheServerIsOverdue() {
+        assertEquals(SyncStatus.CACHED, SyncStatusTracker.resolve(SyncStatus.of(false, true), false));
+        assertEquals(0, SyncStatus.CACHED.getLabel());
+    }
+
+    @Test
+    public void cachedSnapshotsAreOfflineOnceTheServerIsOverdue() {
+        assertEquals(SyncStatus.OFFLINE, SyncStatusTracker.resolve(SyncStatus.of(false, true), true));
+    }
+
+    @Test
+    public void pendingWritesTakePrecedenceOverBeingOffline() {
+        assertEquals(SyncStatus.PENDING_WRITES, SyncStatusTracker.resolve(SyncStatus.of(true, true), true));
+        assertEquals(SyncStatus.SYNCED, SyncStatusTracker.resolve(SyncStatus.of(false, false), true));
+    }
+}
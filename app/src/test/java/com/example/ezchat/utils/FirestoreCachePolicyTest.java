@@ -0,0 +1,28 @@
+package com.example.ezchat.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FirestoreCachePolicy}.
+ */
+public class FirestoreCachePolicyTest {
+    @Test
+    public void lowRamDevicesGetASmallerCache() {
+        assertEquals(FirestoreCachePolicy.DEFAULT_CACHE_SIZE_MB, FirestoreCachePolicy.resolveCacheSizeMb(false, null));
+        assertEquals(FirestoreCachePolicy.LOW_RAM_CACHE_SIZE_MB, FirestoreCachePolicy.resolveCacheSizeMb(true, null));
+    }
+
+    @Test
+    public void configuredSizeOverridesTheDeviceDefault() {
+        assertEquals(40, FirestoreCachePolicy.resolveCacheSizeMb(true, "40"));
+        assertEquals(FirestoreCachePolicy.LOW_RAM_CACHE_SIZE_MB, FirestoreCachePolicy.resolveCacheSizeMb(true, "lots"));
+    }
+
+    @Test
+    public void sizeIsClampedToTheSupportedRange() {
+        assertEquals(FirestoreCachePolicy.MIN_CACHE_SIZE_MB, FirestoreCachePolicy.resolveCacheSizeMb(false, "0"));
+        assertEquals(FirestoreCachePolicy.MAX_CACHE_SIZE_MB, FirestoreCachePolicy.resolveCacheSizeMb(false, "100000"));
+    }
+}
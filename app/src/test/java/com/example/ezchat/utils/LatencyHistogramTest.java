@@ -0,0 +1,41 @@
+package com.example.ezchat.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PerfTracer.LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+    @Test
+    public void percentilesUseNearestRank() {
+        PerfTracer.LatencyHistogram histogram = new PerfTracer.LatencyHistogram();
+        for (int i = 100; i >= 1; i--) {
+            histogram.add(i);
+        }
+
+        assertEquals(50, histogram.percentile(50));
+        assertEquals(95, histogram.percentile(95));
+        assertEquals(99, histogram.percentile(99));
+        assertEquals(100, histogram.percentile(100));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        assertEquals(0, new PerfTracer.LatencyHistogram().percentile(99));
+    }
+
+    @Test
+    public void onlyTheMostRecentSamplesAreKept() {
+        PerfTracer.LatencyHistogram histogram = new PerfTracer.LatencyHistogram();
+        for (int i = 0; i < PerfTracer.LatencyHistogram.CAPACITY; i++) {
+            histogram.add(1000);
+        }
+        for (int i = 0; i < PerfTracer.LatencyHistogram.CAPACITY; i++) {
+            histogram.add(1);
+        }
+
+        assertEquals(1, histogram.percentile(99));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ezchat.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ParticipantInterner}.
+ */
+public class ParticipantInternerTest {
+    @Test
+    public void currentUserHasTheFirstIndex() {
+        ParticipantInterner interner = new ParticipantInterner("me");
+
+        assertEquals(ParticipantInterner.CURRENT_USER, interner.intern("me"));
+        assertEquals("me", interner.userIdOf(ParticipantInterner.CURRENT_USER));
+    }
+
+    @Test
+    public void eachUserKeepsOneIndex() {
+        ParticipantInterner interner = new ParticipantInterner("me");
+        int other = interner.intern("other");
+
+        assertNotEquals(ParticipantInterner.CURRENT_USER, other);
+        assertEquals(other, interner.intern(new String("other")));
+        assertEquals("other", interner.userIdOf(other));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ezchat.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PrefixTrie}.
+ */
+public class PrefixTrieTest {
+    @Test
+    public void findReturnsAllKeysWithPrefix() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.put("1", "alice");
+        trie.put("2", "alicia");
+        trie.put("3", "bob");
+
+        assertEquals(new HashSet<>(Arrays.asList("1", "2")), trie.find("ali"));
+        assertEquals(new HashSet<>(Arrays.asList("1")), trie.find("alice"));
+        assertTrue(trie.find("alicex").isEmpty());
+        assertEquals(3, trie.find("").size());
+    }
+
+    @Test
+    public void putMovesAnIdToItsNewKey() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.put("1", "alice");
+        trie.put("1", "carol");
+
+        assertTrue(trie.find("a").isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("1")), trie.find("car"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void removeKeepsKeysSharingAPrefix() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.put("1", "ann");
+        trie.put("2", "anna");
+        trie.remove("2");
+
+        assertEquals(new HashSet<>(Arrays.asList("1")), trie.find("an"));
+        assertTrue(trie.find("anna").isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ezchat.utils;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TimeFormatter}.
+ */
+public class TimeFormatterTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+    // Wednesday 2024-03-13 15:30 local time
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2024, 3, 13, 15, 30, 0, 0, ZONE);
+
+    private final TimeFormatter formatter = new TimeFormatter(Clock.fixed(NOW.toInstant(), ZONE), Locale.US);
+
+    @Test
+    public void todayShowsHoursAndMinutes() {
+        assertEquals("09:05", formatter.formatRelative(at(NOW.withHour(9).withMinute(5))));
+        assertEquals("00:00", formatter.formatRelative(at(NOW.withHour(0).withMinute(0))));
+    }
+
+    @Test
+    public void yesterdayAndLastWeekShowRelativeLabels() {
+        assertEquals(TimeFormatter.YESTERDAY, formatter.formatRelative(at(NOW.minusDays(1).withHour(23))));
+        assertEquals("Monday", formatter.formatRelative(at(NOW.minusDays(2))));
+        assertEquals("Thursday", formatter.formatRelative(at(NOW.minusDays(6).withHour(0).withMinute(0))));
+    }
+
+    @Test
+    public void olderAndFutureTimestampsShowTheDate() {
+        assertEquals("3/6/24", formatter.formatRelative(at(NOW.minusDays(7))));
+        assertEquals("3/14/24", formatter.formatRelative(at(NOW.plusDays(1).withHour(0))));
+    }
+
+    @Test
+    public void labelsAreMemoizedPerMinute() {
+        String first = formatter.formatRelative(at(NOW.withSecond(10)));
+        assertSame(first, formatter.formatRelative(at(NOW.withSecond(50))));
+    }
+
+    @Test
+    public void dayLabelsAreRelativeToToday() {
+        assertEquals(TimeFormatter.TODAY, formatter.formatDay(NOW.toLocalDate().toEpochDay()));
+        assertEquals(TimeFormatter.YESTERDAY, formatter.formatDay(NOW.toLocalDate().minusDays(1).toEpochDay()));
+        assertEquals("Monday", formatter.formatDay(NOW.toLocalDate().minusDays(2).toEpochDay()));
+        assertEquals("Mar 6, 2024", formatter.formatDay(NOW.toLocalDate().minusDays(7).toEpochDay()));
+    }
+
+    @Test
+    public void dayLabelsCanBeLocalized() {
+        assertEquals(TimeFormatter.YESTERDAY, formatter.formatRelative(at(NOW.minusDays(1))));
+
+        formatter.setDayLabels("Heute", "Gestern");
+
+        assertEquals("Heute", formatter.formatDay(NOW.toLocalDate().toEpochDay()));
+        assertEquals("Gestern", formatter.formatDay(NOW.toLocalDate().minusDays(1).toEpochDay()));
+        // Labels memoized before the change are not reused
+        assertEquals("Gestern", formatter.formatRelative(at(NOW.minusDays(1))));
+    }
+
+    @Test
+    public void epochDayUsesTheLocalDate() {
+        ZonedDateTime justAfterMidnight = NOW.withHour(0).withMinute(1);
+        assertEquals(NOW.toLocalDate().toEpochDay(), formatter.epochDay(justAfterMidnight.toEpochSecond()));
+        assertEquals("00:01", formatter.formatTimeOfDay(justAfterMidnight.toEpochSecond()));
+    }
+
+    @Test
+    public void nullTimestampIsEmpty() {
+        assertEquals("", formatter.formatRelative(null));
+    }
+
+    private static Timestamp at(ZonedDateTime time) {
+        return new Timestamp(time.toEpochSecond(), 0);
+    }
+}
@@ -0,0 +1,36 @@
+plugins {
+    alias(libs.plugins.androidTest)
+    alias(libs.plugins.baselineprofile)
+}
+
+android {
+    namespace = "com.example.ezchat.benchmark"
+    compileSdk = 34
+
+    defaultConfig {
+        minSdk = 28
+        targetSdk = 34
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_1_8
+        targetCompatibility = JavaVersion.VERSION_1_8
+    }
+
+    targetProjectPath = ":app"
+}
+
+// Runs the benchmarks on a connected device; the baseline profile plugin adds the build
+// types the app is measured and profiled in.
+baselineProfile {
+    useConnectedDevices = true
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.espresso.core)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
@@ -0,0 +1,90 @@
+#!/usr/bin/env bash
+# Seeds a local Firebase emulator with synthetic data for the benchmarks in this module.
+#
+# Start the emulators first:   firebase emulators:start --only firestore,auth
+# Then run:                    benchmark/seed_emulator.sh [chatrooms] [messages-per-chatroom]
+# And benchmark against them:  ./gradlew :benchmark:connectedCheck -Pezchat.emulatorHost=10.0.2.2
+#
+# Creates the benchmark account the app signs in with, one user per chatroom partner, and
+# chatrooms with participant summaries and message history.
+set -euo pipefail
+
+PROJECT_ID="ezchatbackend"
+HOST="${EMULATOR_HOST:-localhost}"
+FIRESTORE="http://$HOST:8080/v1/projects/$PROJECT_ID/databases/(default)/documents"
+AUTH="http://$HOST:9099/identitytoolkit.googleapis.com/v1"
+CHATROOMS="${1:-50}"
+MESSAGES="${2:-200}"
+
+# Must match BenchmarkSetupProvider.BENCHMARK_EMAIL and BENCHMARK_PASSWORD
+EMAIL="bench@ezchat.test"
+PASSWORD="benchmark"
+
+post() {
+  curl -sf -X POST -H "Content-Type: application/json" -H "Authorization: Bearer owner" "$@" > /dev/null
+}
+
+patch_doc() {
+  curl -sf -X PATCH -H "Content-Type: application/json" -H "Authorization: Bearer owner" \
+    "$FIRESTORE/$1" -d "$2" > /dev/null
+}
+
+user_doc() {
+  local id="$1" name="$2"
+  local key
+  key="$(echo "$name" | tr '[:upper:]' '[:lower:]')"
+  echo "{\"fields\":{\"userId\":{\"stringValue\":\"$id\"},\"username\":{\"stringValue\":\"$name\"},
+    \"searchKey\":{\"stringValue\":\"$key\"},\"phone\":{\"stringValue\":\"+10000000000\"},
+    \"createdTimestamp\":{\"timestampValue\":\"2024-01-01T00:00:00Z\"}}}"
+}
+
+# Chatroom IDs follow FirebaseUtil.getChatroomId, which orders the two IDs by String.hashCode()
+java_hash() {
+  local s="$1" h=0 i c
+  for ((i = 0; i < ${#s}; i++)); do
+    printf -v c '%d' "'${s:i:1}"
+    h=$(( (h * 31 + c) & 0xFFFFFFFF ))
+  done
+  (( h >= 0x80000000 )) && h=$(( h - 0x100000000 ))
+  echo "$h"
+}
+
+chatroom_id() {
+  if (( $(java_hash "$1") < $(java_hash "$2") )); then echo "$1_$2"; else echo "$2_$1"; fi
+}
+
+curl -sf -X DELETE "http://$HOST:8080/emulator/v1/projects/$PROJECT_ID/databases/(default)/documents" > /dev/null
+curl -sf -X DELETE "http://$HOST:9099/emulator/v1/projects/$PROJECT_ID/accounts" > /dev/null
+
+ME="$(curl -sf -X POST -H "Content-Type: application/json" "$AUTH/accounts:signUp?key=fake-api-key" \
+  -d "{\"email\":\"$EMAIL\",\"password\":\"$PASSWORD\",\"returnSecureToken\":true}" \
+  | sed -n 's/.*"localId": *"\([^"]*\)".*/\1/p')"
+patch_doc "users/$ME" "$(user_doc "$ME" "benchmark")"
+
+for ((r = 0; r < CHATROOMS; r++)); do
+  OTHER="user$(printf '%04d' "$r")"
+  patch_doc "users/$OTHER" "$(user_doc "$OTHER" "Contact $r")"
+  ROOM="$(chatroom_id "$ME" "$OTHER")"
+
+  writes=""
+  for ((m = 0; m < MESSAGES; m++)); do
+    sender="$ME"; (( m % 3 == 0 )) && sender="$OTHER"
+    seconds=$(( 1700000000 + r * 100000 + m * 30 ))
+    ts="$(date -u -d "@$seconds" +%Y-%m-%dT%H:%M:%SZ)"
+    id="$(printf 'm%08d' "$m")"
+    writes+="{\"update\":{\"name\":\"projects/$PROJECT_ID/databases/(default)/documents/chatrooms/$ROOM/chats/$id\",
+      \"fields\":{\"message\":{\"stringValue\":\"Synthetic message $m in chatroom $r\"},
+      \"senderId\":{\"stringValue\":\"$sender\"},\"timestamp\":{\"timestampValue\":\"$ts\"}}}},"
+  done
+  post "$FIRESTORE:commit" -d "{\"writes\":[${writes%,}]}"
+
+  patch_doc "chatrooms/$ROOM" "{\"fields\":{
+    \"chatroomId\":{\"stringValue\":\"$ROOM\"},
+    \"userIds\":{\"arrayValue\":{\"values\":[{\"stringValue\":\"$ME\"},{\"stringValue\":\"$OTHER\"}]}},
+    \"lastMessage\":{\"stringValue\":\"Synthetic message $((MESSAGES - 1)) in chatroom $r\"},
+    \"lastMessageSenderId\":{\"stringValue\":\"$ME\"},
+    \"lastMessageTimestamp\":{\"timestampValue\":\"$ts\"},
+    \"participantNames\":{\"mapValue\":{\"fields\":{\"$ME\":{\"stringValue\":\"benchmark\"},\"$OTHER\":{\"stringValue\":\"Contact $r\"}}}}}}"
+done
+
+echo "Seeded $CHATROOMS chatrooms with $MESSAGES messages each for $EMAIL ($ME)"
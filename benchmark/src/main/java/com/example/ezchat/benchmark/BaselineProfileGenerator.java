@@ -0,0 +1,43 @@
+package com.example.ezchat.benchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Generates the baseline profile shipped in the app, covering startup, scrolling the chat
+ * lists and searching. Run with ./gradlew :app:generateBaselineProfile; the result is copied
+ * to app/src/main/generated/baselineProfiles and installed by profileinstaller.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+    private static final int MAX_ITERATIONS = 15;
+    private static final int STABLE_ITERATIONS = 3;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(
+                BenchmarkActions.PACKAGE_NAME,
+                MAX_ITERATIONS,
+                STABLE_ITERATIONS,
+                null,
+                true,
+                false,
+                className -> true,
+                scope -> {
+                    BenchmarkActions.startAndWaitForChats(scope);
+                    BenchmarkActions.scrollChatList(scope);
+                    BenchmarkActions.openChatAndScroll(scope);
+                    BenchmarkActions.searchUsers(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ezchat.benchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * User journeys shared by the benchmarks and the baseline profile generator.
+ * All of them expect the app to run against the seeded emulator, see seed_emulator.sh.
+ */
+class BenchmarkActions {
+    static final String PACKAGE_NAME = "com.example.ezchat";
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Launches the app and waits until the recent chats list shows its rows.
+     */
+    static void startAndWaitForChats(MacrobenchmarkScope scope) {
+        scope.pressHome();
+        scope.startActivityAndWait();
+        waitForChatList(scope.getDevice());
+    }
+
+    /**
+     * Flings the recent chats list down and back up.
+     */
+    static void scrollChatList(MacrobenchmarkScope scope) {
+        UiObject2 list = waitForChatList(scope.getDevice());
+        fling(scope.getDevice(), list);
+    }
+
+    /**
+     * Opens the first chatroom and flings back through its message history.
+     */
+    static void openChatAndScroll(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        waitForChatList(device).getChildren().get(0).click();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "chat_recycler_view").hasChild(By.depth(1))), TIMEOUT_MILLIS);
+        UiObject2 messages = device.findObject(By.res(PACKAGE_NAME, "chat_recycler_view"));
+        // The message list is reversed, so history is reached by flinging up
+        messages.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            messages.fling(Direction.UP);
+        }
+        messages.fling(Direction.DOWN);
+        device.pressBack();
+    }
+
+    /**
+     * Opens user search, types a prefix of the seeded contacts' names and waits for results.
+     */
+    static void searchUsers(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        device.wait(Until.findObject(By.res(PACKAGE_NAME, "main_search_btn")), TIMEOUT_MILLIS).click();
+        UiObject2 input = device.wait(Until.findObject(By.clazz("android.widget.EditText")), TIMEOUT_MILLIS);
+        input.setText("cont");
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "search_user_recycler_view").hasChild(By.depth(1))),
+                TIMEOUT_MILLIS);
+        device.pressBack();
+        device.pressBack();
+    }
+
+    private static UiObject2 waitForChatList(UiDevice device) {
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "recycler_view").hasChild(By.depth(1))), TIMEOUT_MILLIS);
+        return device.findObject(By.res(PACKAGE_NAME, "recycler_view"));
+    }
+
+    private static void fling(UiDevice device, UiObject2 list) {
+        // Keep gestures away from the system navigation areas
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            list.fling(Direction.DOWN);
+        }
+        list.fling(Direction.UP);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ezchat.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Measures frame timing, and so jank, while scrolling the recent chats list in ChatFragment
+ * and the message history in ChatActivity.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollChatList() {
+        benchmarkRule.measureRepeated(
+                BenchmarkActions.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(BaselineProfileMode.Require),
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    BenchmarkActions.startAndWaitForChats(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    BenchmarkActions.scrollChatList(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void scrollMessages() {
+        benchmarkRule.measureRepeated(
+                BenchmarkActions.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(BaselineProfileMode.Require),
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    BenchmarkActions.startAndWaitForChats(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    BenchmarkActions.openChatAndScroll(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ezchat.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.ExperimentalMetricApi;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Measures search-as-you-type in SearchUserActivity: the latency of the server prefix query,
+ * traced by PerfTracer as firestore.read.userSearch, and frame timing while results arrive.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchBenchmark {
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    @ExperimentalMetricApi
+    public void searchUsers() {
+        List<Metric> metrics = Arrays.asList(
+                new TraceSectionMetric("firestore.read.userSearch", TraceSectionMetric.Mode.Sum),
+                new FrameTimingMetric());
+        benchmarkRule.measureRepeated(
+                BenchmarkActions.PACKAGE_NAME,
+                metrics,
+                new CompilationMode.Partial(BaselineProfileMode.Require),
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    BenchmarkActions.startAndWaitForChats(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    BenchmarkActions.searchUsers(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
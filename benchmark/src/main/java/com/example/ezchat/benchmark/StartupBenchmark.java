@@ -0,0 +1,62 @@
+package com.example.ezchat.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Measures cold and warm startup until MainActivity shows the recent chats list,
+ * with and without the baseline profile.
+ * StartupTimingMetric also reports timeToFullDisplay, which ChatFragment signals with
+ * reportFullyDrawn() once the first chat rows are laid out.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartNoCompilation() {
+        startup(StartupMode.COLD, new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartBaselineProfile() {
+        startup(StartupMode.COLD, new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    @Test
+    public void warmStartBaselineProfile() {
+        startup(StartupMode.WARM, new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    private void startup(StartupMode startupMode, CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                BenchmarkActions.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    BenchmarkActions.startAndWaitForChats(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.ezchat.mapper.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a ModelMapper for every class annotated with GenerateMapper.
+ * Properties follow the rules of Firestore's CustomClassMapper so generated and reflective
+ * mapping produce the same documents: public getters (get/is) paired with public setters,
+ * named by lowercasing the leading capitals, skipping members annotated with @Exclude, and
+ * writing a server timestamp for null properties annotated with @ServerTimestamp.
+ */
+public class FirestoreMapperProcessor extends AbstractProcessor {
+    static final String ANNOTATION = "com.example.ezchat.mapper.GenerateMapper";
+    static final String MAPPER_PACKAGE = "com.example.ezchat.mapper";
+    static final String SUFFIX = "_FirestoreMapper";
+    private static final String EXCLUDE = "com.google.firebase.firestore.Exclude";
+    private static final String SERVER_TIMESTAMP = "com.google.firebase.firestore.ServerTimestamp";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@GenerateMapper only applies to classes");
+                    continue;
+                }
+                generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement model) {
+        if (!hasPublicNoArgConstructor(model)) {
+            error(model, "%s needs a public no-arg constructor", model.getSimpleName());
+            return;
+        }
+        List<Property> properties = new ArrayList<>();
+        for (Property property : collectProperties(model).values()) {
+            if (PropertyType.of(property.type) == null) {
+                error(property.getter, "Unsupported property type %s", property.type);
+                return;
+            }
+            properties.add(property);
+        }
+
+        String packageName = ((PackageElement) model.getEnclosingElement()).getQualifiedName().toString();
+        String modelName = model.getSimpleName().toString();
+        String mapperName = modelName + SUFFIX;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + mapperName, model);
+            try (Writer writer = file.openWriter()) {
+                writer.write(render(packageName, modelName, mapperName, properties));
+            }
+        } catch (IOException e) {
+            error(model, "Cannot write %s: %s", mapperName, e.getMessage());
+        }
+    }
+
+    /**
+     * Pairs the model's public getters and setters by Firestore property name.
+     */
+    private Map<String, Property> collectProperties(TypeElement model) {
+        Map<String, Property> properties = new LinkedHashMap<>();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(model));
+        for (ExecutableElement method : methods) {
+            if (!isMapped(method) || !method.getParameters().isEmpty()) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            String bare = name.startsWith("get") ? name.substring(3)
+                    : name.startsWith("is") && method.getReturnType().getKind() == TypeKind.BOOLEAN ? name.substring(2)
+                    : null;
+            if (bare == null || bare.isEmpty() || name.equals("getClass")) {
+                continue;
+            }
+            Property property = new Property(serializedName(bare), method, method.getReturnType());
+            property.serverTimestamp = hasAnnotation(method, SERVER_TIMESTAMP)
+                    || hasServerTimestampField(model, property.name);
+            properties.put(property.name, property);
+        }
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            if (!isMapped(method) || !name.startsWith("set") || method.getParameters().size() != 1) {
+                continue;
+            }
+            Property property = properties.get(serializedName(name.substring(3)));
+            if (property != null && processingEnv.getTypeUtils().isSameType(
+                    method.getParameters().get(0).asType(), property.type)) {
+                property.setter = method;
+            }
+        }
+        return properties;
+    }
+
+    private boolean isMapped(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        return modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC)
+                && !hasAnnotation(method, EXCLUDE)
+                && !((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object");
+    }
+
+    private boolean hasServerTimestampField(TypeElement model, String propertyName) {
+        for (VariableElement field : ElementFilter.fieldsIn(model.getEnclosedElements())) {
+            if (field.getSimpleName().contentEquals(propertyName) && hasAnnotation(field, SERVER_TIMESTAMP)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement model) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lowercases the leading capitals of an accessor name, as CustomClassMapper does.
+     */
+    static String serializedName(String bare) {
+        char[] chars = bare.toCharArray();
+        for (int i = 0; i < chars.length && Character.isUpperCase(chars[i]); i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    static String render(String packageName, String modelName, String mapperName, List<Property> properties) {
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(packageName).append(";\n\n")
+                .append("import com.google.firebase.firestore.FieldValue;\n")
+                .append("import ").append(MAPPER_PACKAGE).append(".Mappers;\n")
+                .append("import ").append(MAPPER_PACKAGE).append(".ModelMapper;\n\n")
+                .append("import java.util.HashMap;\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n * Generated by FirestoreMapperProcessor from ").append(modelName).append(". Do not edit.\n */\n")
+                .append("public final class ").append(mapperName)
+                .append(" implements ModelMapper<").append(modelName).append("> {\n\n");
+
+        out.append("    @Override\n")
+                .append("    public ").append(modelName).append(" fromMap(Map<String, Object> data) {\n")
+                .append("        ").append(modelName).append(" model = new ").append(modelName).append("();\n")
+                .append("        Object value;\n");
+        for (Property property : properties) {
+            if (property.setter == null) {
+                // Read-only properties are written but never read, like CustomClassMapper does
+                continue;
+            }
+            PropertyType type = PropertyType.of(property.type);
+            out.append("        if (data.containsKey(\"").append(property.name).append("\")) {\n")
+                    .append("            value = data.get(\"").append(property.name).append("\");\n");
+            if (type.primitive) {
+                // Null cannot be assigned to a primitive; the reflective mapper reports it
+                out.append("            if (value == null) {\n")
+                        .append("                throw new ClassCastException(\"null ").append(property.name).append("\");\n")
+                        .append("            }\n");
+            }
+            out.append("            model.").append(property.setter.getSimpleName())
+                    .append("(").append(type.read("value")).append(");\n")
+                    .append("        }\n");
+        }
+        out.append("        return model;\n")
+                .append("    }\n\n");
+
+        out.append("    @Override\n")
+                .append("    public Map<String, Object> toMap(").append(modelName).append(" model) {\n")
+                .append("        Map<String, Object> data = new HashMap<>(")
+                .append(properties.size() * 4 / 3 + 1).append(");\n");
+        for (Property property : properties) {
+            String getter = "model." + property.getter.getSimpleName() + "()";
+            out.append("        data.put(\"").append(property.name).append("\", ");
+            if (property.serverTimestamp) {
+                out.append(getter).append(" != null ? ").append(getter).append(" : FieldValue.serverTimestamp()");
+            } else {
+                out.append(getter);
+            }
+            out.append(");\n");
+        }
+        out.append("        return data;\n")
+                .append("    }\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    private void error(Element element, String format, Object... args) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+    }
+
+    /**
+     * A getter and, if present, its setter.
+     */
+    static class Property {
+        final String name;
+        final ExecutableElement getter;
+        final TypeMirror type;
+        ExecutableElement setter;
+        boolean serverTimestamp;
+
+        Property(String name, ExecutableElement getter, TypeMirror type) {
+            this.name = name;
+            this.getter = getter;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Property types the generated mappers read without reflection, and how to convert a
+     * document value to each of them. A value of another type fails the cast, which makes
+     * Mappers fall back to the reflective mapper for that document.
+     */
+    enum PropertyType {
+        STRING("java.lang.String", false, "(String) %s"),
+        BOOLEAN("boolean", true, "(Boolean) %s"),
+        BOXED_BOOLEAN("java.lang.Boolean", false, "(Boolean) %s"),
+        LONG("long", true, "((Number) %s).longValue()"),
+        BOXED_LONG("java.lang.Long", false, "%1$s != null ? ((Number) %1$s).longValue() : null"),
+        INT("int", true, "((Number) %s).intValue()"),
+        DOUBLE("double", true, "((Number) %s).doubleValue()"),
+        TIMESTAMP("com.google.firebase.Timestamp", false, "(com.google.firebase.Timestamp) %s"),
+        STRING_LIST("java.util.List<java.lang.String>", false, "Mappers.toStringList(%s)"),
+        STRING_MAP("java.util.Map<java.lang.String,java.lang.String>", false, "Mappers.toStringMap(%s)");
+
+        final String typeName;
+        final boolean primitive;
+        private final String conversion;
+
+        PropertyType(String typeName, boolean primitive, String conversion) {
+            this.typeName = typeName;
+            this.primitive = primitive;
+            this.conversion = conversion;
+        }
+
+        String read(String value) {
+            return String.format(conversion, value);
+        }
+
+        static PropertyType of(TypeMirror type) {
+            String name = type.toString().replace(" ", "");
+            for (PropertyType propertyType : values()) {
+                if (propertyType.typeName.equals(name)) {
+                    return propertyType;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -22,3 +22,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "EZChat"
 include(":app")
+include(":benchmark")
+include(":mapper-processor")